@@ -16,6 +16,8 @@ import org.junit.jupiter.api.Test;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.Pipeline;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 public class JedisPipelineMultiGetTests {
 
 	private static final String KEY_STRING = "STR:";
@@ -156,6 +158,10 @@ public class JedisPipelineMultiGetTests {
 						}
 				);
 		System.out.println(JSON.toJSONString(allHash, SerializerFeature.WriteNullStringAsEmpty));
+
+		assertThat(allHash.get(KEY_HASH + 1)).containsEntry("field-01", KEY_HASH + 1 + "_val_01")
+				.containsEntry("field-0x", null);
+		assertThat(allHash.get(KEY_HASH + "X")).containsOnlyKeys("xx", "CC");
 	}
 
 	@Test
@@ -183,5 +189,10 @@ public class JedisPipelineMultiGetTests {
 				);
 
 		System.out.println(JSON.toJSONString(allHash, SerializerFeature.WriteNullStringAsEmpty));
+
+		// 不存在的key由`emptySet`填充
+		assertThat(allHash).containsEntry(KEY_STRING + "1", "str_val_1")
+				.containsEntry(KEY_STRING + "2", "str_val_2")
+				.containsEntry(KEY_STRING + "X", "2333");
 	}
 }
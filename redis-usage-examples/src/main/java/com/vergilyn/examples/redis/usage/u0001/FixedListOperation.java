@@ -1,10 +1,21 @@
 package com.vergilyn.examples.redis.usage.u0001;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.vergilyn.examples.commons.domain.Tuple;
 import com.vergilyn.examples.commons.utils.LuaScriptReadUtils;
+import com.vergilyn.examples.commons.utils.RedisScriptPipelineUtils;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.RedisScript;
 
@@ -13,13 +24,40 @@ import org.springframework.data.redis.core.script.RedisScript;
  * @author vergilyn
  * @since 2021-04-26
  */
+@Slf4j
 public class FixedListOperation {
 	protected static final String REDIS_FIXED_LIST_LUA;
 	protected static final RedisScript<Long> REDIS_FIXED_LIST_SCRIPT;
 
+	protected static final RedisScript<Long> REDIS_FIXED_LIST_CHUNK_SCRIPT;
+	protected static final RedisScript<Long> REDIS_FIXED_LIST_TRIM_SCRIPT;
+
+	/**
+	 * 默认的存储方式：redis-LIST
+	 */
+	public static final FixedListStrategy LIST = new ListFixedListStrategy();
+
+	/**
+	 * 分批导入时，每次lua调用的lpush-args数量
+	 */
+	public static final int DEFAULT_BULK_CHUNK_SIZE = 1000;
+
+	/**
+	 * 分批导入时，每个pipeline包含的lua调用次数
+	 */
+	public static final int BULK_CHUNKS_PER_PIPELINE = 10;
+
+	/**
+	 * 多个key批量写入时，每个pipeline包含的key数量
+	 */
+	public static final int DEFAULT_BATCH_KEYS_PER_PIPELINE = 100;
+
 	static {
 		REDIS_FIXED_LIST_LUA = LuaScriptReadUtils.getScript(FixedListOperation.class, "redis-fixed-list.lua");
 		REDIS_FIXED_LIST_SCRIPT = RedisScript.of(REDIS_FIXED_LIST_LUA, Long.class);
+
+		REDIS_FIXED_LIST_CHUNK_SCRIPT = RedisScript.of(LuaScriptReadUtils.getScript(FixedListOperation.class, "redis-fixed-list-chunk.lua"), Long.class);
+		REDIS_FIXED_LIST_TRIM_SCRIPT = RedisScript.of(LuaScriptReadUtils.getScript(FixedListOperation.class, "redis-fixed-list-trim.lua"), Long.class);
 	}
 
 	/**
@@ -31,12 +69,123 @@ public class FixedListOperation {
 	 * @return size of the list after lpush
 	 */
 	public static Long execute(StringRedisTemplate redisTemplate, String key, int fixedSize, List<String> lpushArgs){
-		List<String> keys = Lists.newArrayList(key);
+		return execute(redisTemplate, key, fixedSize, lpushArgs, LIST);
+	}
+
+	/**
+	 *
+	 * @param strategy 存储方式，例如 {@linkplain #LIST}、{@linkplain RingBufferFixedListStrategy}。同一个key必须始终使用相同的strategy
+	 * @return size of the list after lpush
+	 */
+	public static Long execute(StringRedisTemplate redisTemplate, String key, int fixedSize, List<String> lpushArgs,
+			FixedListStrategy strategy){
+		return strategy.push(redisTemplate, key, fixedSize, lpushArgs);
+	}
+
+	/**
+	 * 将相同的`lpushArgs`写入多个key（例如 一条动态推送给500个粉丝），每个key有各自的fixed-size。
+	 * <pre>
+	 *   1. 所有key平均分成`parallelism`份，每份提交到`executor`，使用连接池中的一个连接并行执行；
+	 *   2. 每份中，每{@linkplain #DEFAULT_BATCH_KEYS_PER_PIPELINE}个key通过一次pipeline EVALSHA写入。
+	 * </pre>
+	 *
+	 * @param keyFixedSizes key: redis-key, value: fixed-size
+	 * @param executor 由调用方创建、关闭，例如 `Executors.newFixedThreadPool(parallelism)`（线程数需要小于连接池的`maxTotal`）
+	 * @param parallelism 大于0，最多拆分的份数
+	 * @return key: redis-key, value: size of the list after lpush，执行失败时是null
+	 */
+	public static Map<String, Long> executeBatch(StringRedisTemplate redisTemplate, Map<String, Integer> keyFixedSizes,
+			List<String> lpushArgs, FixedListStrategy strategy, Executor executor, int parallelism){
+		Preconditions.checkNotNull(executor, "executor must not be null");
+		Preconditions.checkArgument(parallelism > 0, "parallelism must be greater than 0");
 
-		List<String> args = Lists.newArrayList();
-		args.add(fixedSize + "");
-		args.addAll(lpushArgs);
+		if (keyFixedSizes.isEmpty()){
+			return Collections.emptyMap();
+		}
+
+		List<Map.Entry<String, Integer>> entries = Lists.newArrayList(keyFixedSizes.entrySet());
+		int partitionSize = (entries.size() + parallelism - 1) / parallelism;
+
+		List<CompletableFuture<Map<String, Long>>> futures = Lists.partition(entries, partitionSize).stream()
+				.map(partition -> CompletableFuture.supplyAsync(
+						() -> executeBatchPartition(redisTemplate, partition, lpushArgs, strategy), executor))
+				.collect(Collectors.toList());
+
+		Map<String, Long> results = Maps.newHashMapWithExpectedSize(keyFixedSizes.size());
+		futures.forEach(future -> results.putAll(future.join()));
+		return results;
+	}
+
+	public static Map<String, Long> executeBatch(StringRedisTemplate redisTemplate, Map<String, Integer> keyFixedSizes,
+			List<String> lpushArgs, Executor executor, int parallelism){
+		return executeBatch(redisTemplate, keyFixedSizes, lpushArgs, LIST, executor, parallelism);
+	}
+
+	private static Map<String, Long> executeBatchPartition(StringRedisTemplate redisTemplate, List<Map.Entry<String, Integer>> partition,
+			List<String> lpushArgs, FixedListStrategy strategy){
+		Map<String, Long> results = Maps.newHashMapWithExpectedSize(partition.size());
+
+		for (List<Map.Entry<String, Integer>> pipeline : Lists.partition(partition, DEFAULT_BATCH_KEYS_PER_PIPELINE)){
+			List<Tuple<List<String>, List<String>>> calls = pipeline.stream()
+					.map(entry -> Tuple.of(Collections.singletonList(entry.getKey()), strategy.pushArgs(entry.getValue(), lpushArgs)))
+					.collect(Collectors.toList());
+
+			List<Object> values;
+			try {
+				values = RedisScriptPipelineUtils.evalsha(redisTemplate, strategy.pushScript(), calls);
+			}catch (Exception e){
+				log.error("[vergilyn]fixed-list batch push error >>>> keys: {}, error: {}", pipeline.size(), e.getMessage(), e);
+				pipeline.forEach(entry -> results.put(entry.getKey(), null));
+				continue;
+			}
+
+			for (int i = 0, len = pipeline.size(); i < len; i++){
+				Object value = values.get(i);
+				results.put(pipeline.get(i).getKey(), value instanceof Long ? (Long) value : null);
+
+				if (!(value instanceof Long)){
+					log.warn("[vergilyn]fixed-list push failure >>>> key: {}, result: {}", pipeline.get(i).getKey(), value);
+				}
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * 与`LRANGE`相同：0 表示最新的元素，支持负数
+	 */
+	public static List<String> range(StringRedisTemplate redisTemplate, String key, long start, long stop,
+			FixedListStrategy strategy){
+		return strategy.range(redisTemplate, key, start, stop);
+	}
+
+	/**
+	 * 大量数据导入，效果等同于 {@linkplain #execute(StringRedisTemplate, String, int, List)}（只支持{@linkplain #LIST}）。
+	 * <pre>
+	 *   1. 只有最后`fixedSize`个lpush-args会被保留，所以只导入这部分；
+	 *   2. 按`chunkSize`拆分成多次lua调用（pipeline），避免`unpack`超过限制 以及 长时间阻塞redis；
+	 *   3. 所有数据写入后，只执行一次 ltrim。
+	 * </pre>
+	 *
+	 * @param progress 参数：已导入数量、需要导入的总数量。可以为null
+	 * @return size of the list after lpush
+	 */
+	public static Long bulkExecute(StringRedisTemplate redisTemplate, String key, int fixedSize, List<String> lpushArgs,
+			int chunkSize, BiConsumer<Integer, Integer> progress){
+		List<String> args = lpushArgs.size() > fixedSize
+				? lpushArgs.subList(lpushArgs.size() - fixedSize, lpushArgs.size())
+				: lpushArgs;
+
+		int total = args.size();
+		RedisScriptPipelineUtils.evalshaChunked(redisTemplate, REDIS_FIXED_LIST_CHUNK_SCRIPT, key, args,
+				chunkSize, BULK_CHUNKS_PER_PIPELINE, progress == null ? null : sent -> progress.accept(sent, total));
+
+		return redisTemplate.execute(REDIS_FIXED_LIST_TRIM_SCRIPT, Lists.newArrayList(key), fixedSize + "");
+	}
 
-		return redisTemplate.execute(REDIS_FIXED_LIST_SCRIPT, keys, args.toArray());
+	public static Long bulkExecute(StringRedisTemplate redisTemplate, String key, int fixedSize, List<String> lpushArgs,
+			BiConsumer<Integer, Integer> progress){
+		return bulkExecute(redisTemplate, key, fixedSize, lpushArgs, DEFAULT_BULK_CHUNK_SIZE, progress);
 	}
 }
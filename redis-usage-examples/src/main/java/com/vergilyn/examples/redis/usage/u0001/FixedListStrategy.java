@@ -0,0 +1,42 @@
+package com.vergilyn.examples.redis.usage.u0001;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * 固定大小的 List 的存储方式。
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ * @see FixedListOperation#LIST
+ * @see RingBufferFixedListStrategy
+ */
+public interface FixedListStrategy {
+
+	/**
+	 * @return lpush的lua脚本，返回 size of the list after lpush
+	 */
+	RedisScript<Long> pushScript();
+
+	/**
+	 * @return {@linkplain #pushScript()}的ARGV
+	 */
+	List<String> pushArgs(int fixedSize, List<String> lpushArgs);
+
+	/**
+	 * 效果等同于`LPUSH key lpushArgs...`，之后只保留最新的`fixedSize`个元素
+	 *
+	 * @return size of the list after lpush
+	 */
+	default Long push(StringRedisTemplate redisTemplate, String key, int fixedSize, List<String> lpushArgs){
+		return redisTemplate.execute(pushScript(), Collections.singletonList(key), pushArgs(fixedSize, lpushArgs).toArray());
+	}
+
+	/**
+	 * 与`LRANGE`相同：0 表示最新的元素，支持负数
+	 */
+	List<String> range(StringRedisTemplate redisTemplate, String key, long start, long stop);
+}
@@ -0,0 +1,35 @@
+package com.vergilyn.examples.redis.usage.u0001;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * 使用 redis-LIST 保存：LPUSH + LTRIM（`redis-fixed-list.lua`）
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class ListFixedListStrategy implements FixedListStrategy {
+
+	@Override
+	public RedisScript<Long> pushScript() {
+		return FixedListOperation.REDIS_FIXED_LIST_SCRIPT;
+	}
+
+	@Override
+	public List<String> pushArgs(int fixedSize, List<String> lpushArgs) {
+		List<String> args = Lists.newArrayListWithCapacity(lpushArgs.size() + 1);
+		args.add(fixedSize + "");
+		args.addAll(lpushArgs);
+		return args;
+	}
+
+	@Override
+	public List<String> range(StringRedisTemplate redisTemplate, String key, long start, long stop) {
+		return redisTemplate.opsForList().range(key, start, stop);
+	}
+}
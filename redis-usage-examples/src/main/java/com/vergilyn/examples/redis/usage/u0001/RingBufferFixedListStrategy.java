@@ -0,0 +1,70 @@
+package com.vergilyn.examples.redis.usage.u0001;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.vergilyn.examples.commons.utils.LuaScriptReadUtils;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * 使用一个 redis-STRING 保存（ring-buffer），每个元素占用固定宽度的slot（`SETRANGE/GETRANGE`）。
+ *
+ * <p>
+ *   适合大量的、元素很小的固定大小List（例如 ID列表）：LIST每个元素都有额外的节点开销，而STRING只有`16 + fixedSize * slotWidth` bytes。
+ *   写入是O(1)（每个元素一次SETRANGE），不需要LTRIM。
+ * </p>
+ *
+ * <pre>
+ *   1. 元素长度不能超过`slotWidth`（UTF-8 bytes），且不能以`\0`结尾；
+ *   2. 同一个key的 fixedSize/slotWidth 不能改变（保存在header中，不一致时lua返回error）。
+ * </pre>
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class RingBufferFixedListStrategy implements FixedListStrategy {
+	protected static final RedisScript<Long> RING_PUSH_SCRIPT;
+	protected static final RedisScript<List> RING_RANGE_SCRIPT;
+
+	static {
+		RING_PUSH_SCRIPT = RedisScript.of(LuaScriptReadUtils.getScript(RingBufferFixedListStrategy.class, "ring-fixed-list-push.lua"), Long.class);
+		RING_RANGE_SCRIPT = RedisScript.of(LuaScriptReadUtils.getScript(RingBufferFixedListStrategy.class, "ring-fixed-list-range.lua"), List.class);
+	}
+
+	private final int slotWidth;
+
+	/**
+	 * @param slotWidth 每个元素占用的bytes，例如 long类型的ID最多20
+	 */
+	public RingBufferFixedListStrategy(int slotWidth) {
+		this.slotWidth = slotWidth;
+	}
+
+	@Override
+	public RedisScript<Long> pushScript() {
+		return RING_PUSH_SCRIPT;
+	}
+
+	@Override
+	public List<String> pushArgs(int fixedSize, List<String> lpushArgs) {
+		List<String> args = Lists.newArrayListWithCapacity(lpushArgs.size() + 2);
+		args.add(fixedSize + "");
+		args.add(slotWidth + "");
+		args.addAll(lpushArgs);
+		return args;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<String> range(StringRedisTemplate redisTemplate, String key, long start, long stop) {
+		List<String> range = (List<String>) redisTemplate.execute(RING_RANGE_SCRIPT, Lists.newArrayList(key), start + "", stop + "");
+		return range == null ? Collections.emptyList() : range;
+	}
+
+	public int getSlotWidth() {
+		return slotWidth;
+	}
+}
@@ -0,0 +1,5 @@
+--- 固定大小的 List，分批导入：只lpush，最后再执行一次`redis-fixed-list-trim.lua`
+--- KEYS[1]: redis-key
+--- ARGV[1+]: lpush args
+
+return redis.call("lpush", KEYS[1], unpack(ARGV));
@@ -0,0 +1,6 @@
+--- 固定大小的 List，分批导入完成后trim
+--- KEYS[1]: redis-key
+--- ARGV[1]: List fixed-size
+
+redis.call("ltrim", KEYS[1], 0, tonumber(ARGV[1]) - 1);
+return redis.call("llen", KEYS[1]);
@@ -0,0 +1,38 @@
+--- 固定大小的 List（ring-buffer），所有元素保存在一个STRING中，每个元素占用固定宽度（不足时补`\0`）
+--- header(16 bytes): head(下一次写入的slot) count(元素个数) fixed-size slot-width, 均为 big-endian uint32
+--- slot[i]: offset = 16 + i * slot-width
+--- KEYS[1]: redis-key
+--- ARGV[1]: List fixed-size
+--- ARGV[2]: slot-width (bytes)
+--- ARGV[3+]: lpush args
+
+local size = tonumber(ARGV[1]);
+local width = tonumber(ARGV[2]);
+
+local head, count = 0, 0;
+local header = redis.call("GETRANGE", KEYS[1], 0, 15);
+if (#header == 16) then
+    local exists_size, exists_width;
+    head, count, exists_size, exists_width = struct.unpack(">I4>I4>I4>I4", header);
+    if (exists_size ~= size or exists_width ~= width) then
+        return redis.error_reply("ring-buffer fixed-size/slot-width mismatch: " .. exists_size .. "/" .. exists_width);
+    end
+end
+
+--- 先校验，避免只写入了部分元素
+for i = 3, #ARGV do
+    if (#ARGV[i] > width) then
+        return redis.error_reply("element longer than slot-width: " .. ARGV[i]);
+    end
+end
+
+--- 只有最后 fixed-size 个元素会被保留
+local first = math.max(3, #ARGV - size + 1);
+for i = first, #ARGV do
+    redis.call("SETRANGE", KEYS[1], 16 + head * width, ARGV[i] .. string.rep("\0", width - #ARGV[i]));
+    head = (head + 1) % size;
+end
+count = math.min(size, count + #ARGV - 2);
+
+redis.call("SETRANGE", KEYS[1], 0, struct.pack(">I4>I4>I4>I4", head, count, size, width));
+return count;
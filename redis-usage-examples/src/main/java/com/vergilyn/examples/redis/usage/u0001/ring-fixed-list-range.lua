@@ -0,0 +1,26 @@
+--- 固定大小的 List（ring-buffer），与`LRANGE`相同：0 表示最新的元素，支持负数
+--- KEYS[1]: redis-key
+--- ARGV[1]: start
+--- ARGV[2]: stop
+
+local header = redis.call("GETRANGE", KEYS[1], 0, 15);
+if (#header < 16) then
+    return {};
+end
+
+local head, count, size, width = struct.unpack(">I4>I4>I4>I4", header);
+local start = tonumber(ARGV[1]);
+local stop = tonumber(ARGV[2]);
+if (start < 0) then start = count + start end
+if (stop < 0) then stop = count + stop end
+if (start < 0) then start = 0 end
+if (stop >= count) then stop = count - 1 end
+
+local result = {};
+for i = start, stop do
+    local slot = (head - 1 - i) % size;
+    local offset = 16 + slot * width;
+    local element = redis.call("GETRANGE", KEYS[1], offset, offset + width - 1);
+    table.insert(result, (string.gsub(element, "%z+$", "")));
+end
+return result;
@@ -0,0 +1,216 @@
+package com.vergilyn.examples.redis.usage.u0002;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.vergilyn.examples.commons.domain.Tuple;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * "最近使用" 合并写入：按 redis-key 缓存一小段时间（linger）内的add，然后通过 pipeline 批量 EVALSHA 写入redis。
+ *
+ * <pre>
+ *   1. 同一个key的重复member只保留最新的score；
+ *   2. 触发flush：linger到期 或 缓存的member数量达到`maxBufferedMembers`；
+ *   3. {@linkplain #close()} 会flush剩余的数据，之后的add抛出异常；
+ *   4. 与直接写入一样是 best-effort，flush失败只记录日志（包括丢失的key），不会重试。
+ * </pre>
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+@Slf4j
+public class RecentlyUsedBufferedWriter implements AutoCloseable {
+	public static final long DEFAULT_LINGER_MILLIS = 200;
+	public static final int DEFAULT_MAX_BUFFERED_MEMBERS = 10_000;
+	public static final int DEFAULT_MAX_KEYS_PER_PIPELINE = 500;
+
+	private final StringRedisTemplate stringRedisTemplate;
+	private final int maxBufferedMembers;
+	private final int maxKeysPerPipeline;
+
+	private final ConcurrentMap<String, PendingKey> buffer = new ConcurrentHashMap<>();
+	private final AtomicInteger bufferedMembers = new AtomicInteger(0);
+
+	private final ScheduledExecutorService scheduler;
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final AtomicBoolean flushTriggered = new AtomicBoolean(false);
+
+	/**
+	 * add: read-lock，close: write-lock。保证close之后（最后一次flush之前）不会再有add写入缓冲区
+	 */
+	private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+	private boolean closed = false;
+
+	public RecentlyUsedBufferedWriter(StringRedisTemplate stringRedisTemplate) {
+		this(stringRedisTemplate, DEFAULT_LINGER_MILLIS, DEFAULT_MAX_BUFFERED_MEMBERS, DEFAULT_MAX_KEYS_PER_PIPELINE);
+	}
+
+	public RecentlyUsedBufferedWriter(StringRedisTemplate stringRedisTemplate,
+			long lingerMillis, int maxBufferedMembers, int maxKeysPerPipeline) {
+		this.stringRedisTemplate = stringRedisTemplate;
+		this.maxBufferedMembers = maxBufferedMembers;
+		this.maxKeysPerPipeline = maxKeysPerPipeline;
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+				.setNameFormat("recently-used-writer-%d")
+				.setDaemon(true)
+				.build());
+		this.scheduler.scheduleWithFixedDelay(this::flushQuietly, lingerMillis, lingerMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 添加到缓冲区，不会立即写入redis
+	 */
+	public void add(String key, long fixedSize, long expiredSeconds, double score, List<String> members){
+		closeLock.readLock().lock();
+		try {
+			if (closed){
+				throw new IllegalStateException("recently-used buffered-writer has been closed!");
+			}
+
+			buffer.compute(key, (k, pending) -> {
+				if (pending == null){
+					pending = new PendingKey();
+				}
+
+				pending.fixedSize = fixedSize;
+				pending.expiredSeconds = expiredSeconds;
+
+				int before = pending.memberScores.size();
+				for (String member : members){
+					// 重复的member只保留最新的score
+					pending.memberScores.merge(member, score, Math::max);
+				}
+				bufferedMembers.addAndGet(pending.memberScores.size() - before);
+
+				return pending;
+			});
+
+			// 持有read-lock，scheduler不会被shutdown
+			if (bufferedMembers.get() >= maxBufferedMembers && flushTriggered.compareAndSet(false, true)){
+				scheduler.execute(this::flushQuietly);
+			}
+		}finally {
+			closeLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 将缓冲区的数据全部写入redis
+	 */
+	public void flush(){
+		flushLock.lock();
+		try {
+			flushTriggered.set(false);
+
+			List<Tuple<String, List<String>>> calls = Lists.newArrayListWithCapacity(maxKeysPerPipeline);
+			for (String key : buffer.keySet()){
+				PendingKey pending = buffer.remove(key);
+				if (pending == null){
+					continue;
+				}
+
+				bufferedMembers.addAndGet(-pending.memberScores.size());
+				calls.add(Tuple.of(key, RecentlyUsedOperation.scoresArgs(pending.fixedSize, pending.expiredSeconds, pending.memberScores)));
+
+				if (calls.size() >= maxKeysPerPipeline){
+					write(calls);
+					calls = Lists.newArrayListWithCapacity(maxKeysPerPipeline);
+				}
+			}
+
+			if (!calls.isEmpty()){
+				write(calls);
+			}
+		}finally {
+			flushLock.unlock();
+		}
+	}
+
+	public int getBufferedMembers(){
+		return bufferedMembers.get();
+	}
+
+	@PreDestroy
+	@Override
+	public void close() {
+		closeLock.writeLock().lock();
+		try {
+			closed = true;
+		}finally {
+			closeLock.writeLock().unlock();
+		}
+
+		scheduler.shutdown();
+
+		try {
+			scheduler.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// 获取write-lock时，已开始的add都已写入缓冲区，之后的add会抛出异常，所以这里flush的是全部剩余数据
+		flush();
+	}
+
+	/**
+	 * `calls`已从缓冲区移除，写入失败的key会丢失（只记录日志）
+	 */
+	private void write(List<Tuple<String, List<String>>> calls){
+		List<Boolean> results;
+		try {
+			results = RecentlyUsedOperation.executeBatch(stringRedisTemplate, calls);
+		}catch (RuntimeException e){
+			log.error("[vergilyn]flush recently-used buffer error, lost keys >>>> {}",
+					calls.stream().map(Tuple::getFirst).collect(Collectors.toList()));
+			throw e;
+		}
+
+		List<String> failures = Lists.newArrayList();
+		for (int i = 0, len = calls.size(); i < len; i++){
+			if (!results.get(i)){
+				failures.add(calls.get(i).getFirst());
+			}
+		}
+
+		if (!failures.isEmpty()){
+			log.warn("[vergilyn]flush recently-used buffer failure, lost keys >>>> {}", failures);
+		}
+
+		if (log.isDebugEnabled()){
+			log.debug("[vergilyn]flush recently-used buffer >>>> keys: {}, failure: {}", calls.size(), failures.size());
+		}
+	}
+
+	private void flushQuietly(){
+		try {
+			flush();
+		}catch (Exception e){
+			log.error("[vergilyn]flush recently-used buffer error >>>> {}", e.getMessage(), e);
+		}
+	}
+
+	private static class PendingKey {
+		private final Map<String, Double> memberScores = Maps.newLinkedHashMap();
+		private long fixedSize;
+		private long expiredSeconds;
+	}
+}
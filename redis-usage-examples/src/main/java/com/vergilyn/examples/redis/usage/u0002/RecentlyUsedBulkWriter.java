@@ -0,0 +1,112 @@
+package com.vergilyn.examples.redis.usage.u0002;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.vergilyn.examples.commons.domain.Tuple;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * "最近使用" 多用户批量写入（例如 根据日志回填历史数据）。
+ *
+ * <pre>
+ *   1. 每`keysPerPipeline`个key作为一批，一批通过一次pipeline EVALSHA（`recently-used-write-scores.lua`）写入；
+ *   2. 最多`parallelism`批同时执行，每批使用连接池中的一个连接（注意不要超过连接池的 max-total）；
+ *   3. 每个key只写入score最大的`fixedSize`个member（其余的写入后也会被trim）。
+ * </pre>
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+@Slf4j
+public class RecentlyUsedBulkWriter implements AutoCloseable {
+	public static final int DEFAULT_PARALLELISM = 8;
+	public static final int DEFAULT_KEYS_PER_PIPELINE = 200;
+
+	private final StringRedisTemplate stringRedisTemplate;
+	private final int keysPerPipeline;
+	private final ExecutorService executor;
+
+	public RecentlyUsedBulkWriter(StringRedisTemplate stringRedisTemplate) {
+		this(stringRedisTemplate, DEFAULT_PARALLELISM, DEFAULT_KEYS_PER_PIPELINE);
+	}
+
+	public RecentlyUsedBulkWriter(StringRedisTemplate stringRedisTemplate, int parallelism, int keysPerPipeline) {
+		this.stringRedisTemplate = stringRedisTemplate;
+		this.keysPerPipeline = keysPerPipeline;
+		this.executor = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder()
+				.setNameFormat("recently-used-bulk-writer-%d")
+				.setDaemon(true)
+				.build());
+	}
+
+	/**
+	 *
+	 * @param keyMemberScores key: redis-key, value: {member: score}
+	 * @return key: redis-key, value: true 写入成功
+	 */
+	public Map<String, Boolean> write(Map<String, Map<String, Double>> keyMemberScores, long fixedSize, long expiredSeconds){
+		List<Tuple<String, List<String>>> calls = keyMemberScores.entrySet().stream()
+				.filter(entry -> entry.getValue() != null && !entry.getValue().isEmpty())
+				.map(entry -> Tuple.of(entry.getKey(), args(entry.getValue(), fixedSize, expiredSeconds)))
+				.collect(Collectors.toList());
+
+		List<CompletableFuture<Map<String, Boolean>>> futures = Lists.partition(calls, keysPerPipeline).stream()
+				.map(batch -> CompletableFuture.supplyAsync(() -> writeBatch(batch), executor))
+				.collect(Collectors.toList());
+
+		Map<String, Boolean> results = Maps.newHashMapWithExpectedSize(keyMemberScores.size());
+		keyMemberScores.keySet().forEach(key -> results.put(key, Boolean.TRUE));
+		futures.forEach(future -> results.putAll(future.join()));
+
+		return results;
+	}
+
+	@PreDestroy
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	private Map<String, Boolean> writeBatch(List<Tuple<String, List<String>>> batch){
+		Map<String, Boolean> results = Maps.newHashMapWithExpectedSize(batch.size());
+
+		try {
+			List<Boolean> expires = RecentlyUsedOperation.executeBatch(stringRedisTemplate, batch);
+			for (int i = 0, len = batch.size(); i < len; i++){
+				results.put(batch.get(i).getFirst(), expires.get(i));
+			}
+		}catch (Exception e){
+			log.error("[vergilyn]bulk write recently-used error >>>> keys: {}, error: {}", batch.size(), e.getMessage(), e);
+			batch.forEach(call -> results.put(call.getFirst(), Boolean.FALSE));
+		}
+
+		return results;
+	}
+
+	private List<String> args(Map<String, Double> memberScores, long fixedSize, long expiredSeconds){
+		if (memberScores.size() <= fixedSize){
+			return RecentlyUsedOperation.scoresArgs(fixedSize, expiredSeconds, memberScores);
+		}
+
+		Map<String, Double> top = Maps.newLinkedHashMap();
+		memberScores.entrySet().stream()
+				.sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+				.limit(fixedSize)
+				.forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+
+		return RecentlyUsedOperation.scoresArgs(fixedSize, expiredSeconds, top);
+	}
+}
@@ -1,9 +1,16 @@
 package com.vergilyn.examples.redis.usage.u0002;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.google.common.collect.Lists;
+import com.vergilyn.examples.commons.domain.Tuple;
 import com.vergilyn.examples.commons.utils.LuaScriptReadUtils;
+import com.vergilyn.examples.commons.utils.RedisScriptPipelineUtils;
 
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.RedisScript;
@@ -12,9 +19,35 @@ public class RecentlyUsedOperation {
 	protected static final String RECENTLY_USED_LUA;
 	protected static final RedisScript<Boolean> RECENTLY_USED_SCRIPT;
 
+	protected static final String RECENTLY_USED_SCORES_LUA;
+	protected static final RedisScript<Boolean> RECENTLY_USED_SCORES_SCRIPT;
+
+	protected static final RedisScript<Boolean> RECENTLY_USED_TRENDING_SCRIPT;
+
+	protected static final RedisScript<Long> RECENTLY_USED_CHUNK_SCRIPT;
+	protected static final RedisScript<Boolean> RECENTLY_USED_TRIM_SCRIPT;
+
+	/**
+	 * 分批导入时，每次lua调用的member数量
+	 */
+	public static final int DEFAULT_BULK_CHUNK_SIZE = 500;
+
+	/**
+	 * 分批导入时，每个pipeline包含的lua调用次数
+	 */
+	public static final int BULK_CHUNKS_PER_PIPELINE = 10;
+
 	static {
 		RECENTLY_USED_LUA = LuaScriptReadUtils.getScript(RecentlyUsedOperation.class, "recently-used-write.lua");
 		RECENTLY_USED_SCRIPT = RedisScript.of(RECENTLY_USED_LUA, Boolean.class);
+
+		RECENTLY_USED_SCORES_LUA = LuaScriptReadUtils.getScript(RecentlyUsedOperation.class, "recently-used-write-scores.lua");
+		RECENTLY_USED_SCORES_SCRIPT = RedisScript.of(RECENTLY_USED_SCORES_LUA, Boolean.class);
+
+		RECENTLY_USED_TRENDING_SCRIPT = RedisScript.of(LuaScriptReadUtils.getScript(RecentlyUsedOperation.class, "recently-used-write-trending.lua"), Boolean.class);
+
+		RECENTLY_USED_CHUNK_SCRIPT = RedisScript.of(LuaScriptReadUtils.getScript(RecentlyUsedOperation.class, "recently-used-write-chunk.lua"), Long.class);
+		RECENTLY_USED_TRIM_SCRIPT = RedisScript.of(LuaScriptReadUtils.getScript(RecentlyUsedOperation.class, "recently-used-trim.lua"), Boolean.class);
 	}
 
 	public static Boolean execute(StringRedisTemplate redisTemplate, String key,
@@ -34,4 +67,98 @@ public class RecentlyUsedOperation {
 	public static Boolean execute(StringRedisTemplate redisTemplate, List<String> keys, List<String> args){
 		return redisTemplate.execute(RECENTLY_USED_SCRIPT, keys, args.toArray());
 	}
+
+	/**
+	 * 与{@linkplain #execute(StringRedisTemplate, String, long, long, double, List)}相同，同时在同一个lua中累加资源热度（ZINCRBY）。
+	 *
+	 * @param trendingKey {@linkplain com.vergilyn.examples.redis.usage.u0002.cache.trending.TrendingSourceIndex#currentBucketKey()}
+	 * @param trendingExpiredSeconds {@linkplain com.vergilyn.examples.redis.usage.u0002.cache.trending.TrendingSourceIndex#bucketExpiredSeconds()}
+	 */
+	public static Boolean executeWithTrending(StringRedisTemplate redisTemplate, String key, String trendingKey,
+			long fixedSize, long expiredSeconds, double score, long trendingExpiredSeconds, List<String> members){
+
+		List<String> args = Lists.newArrayListWithCapacity(members.size() + 4);
+		args.add(fixedSize + "");
+		args.add(expiredSeconds + "");
+		args.add(score + "");
+		args.add(trendingExpiredSeconds + "");
+		args.addAll(members);
+
+		return redisTemplate.execute(RECENTLY_USED_TRENDING_SCRIPT, Lists.newArrayList(key, trendingKey), args.toArray());
+	}
+
+	/**
+	 * 每个member使用各自的score
+	 *
+	 * @param memberScores key: member, value: score
+	 */
+	public static Boolean execute(StringRedisTemplate redisTemplate, String key,
+			long fixedSize, long expiredSeconds, Map<String, Double> memberScores){
+
+		return redisTemplate.execute(RECENTLY_USED_SCORES_SCRIPT, Lists.newArrayList(key),
+				scoresArgs(fixedSize, expiredSeconds, memberScores).toArray());
+	}
+
+	/**
+	 * 通过 pipeline 批量执行`recently-used-write-scores.lua`（EVALSHA），适用于一次写入多个key。
+	 *
+	 * @param calls first: key, second: {@linkplain #scoresArgs(long, long, Map)}
+	 * @return 与`calls`顺序相同，true: 写入成功
+	 */
+	public static List<Boolean> executeBatch(StringRedisTemplate redisTemplate, List<Tuple<String, List<String>>> calls){
+		List<Tuple<List<String>, List<String>>> scriptCalls = calls.stream()
+				.map(call -> Tuple.of((List<String>) Lists.newArrayList(call.getFirst()), call.getSecond()))
+				.collect(Collectors.toList());
+
+		return RedisScriptPipelineUtils.evalsha(redisTemplate, RECENTLY_USED_SCORES_SCRIPT, scriptCalls).stream()
+				.map(RedisScriptPipelineUtils::toBoolean)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * 大量数据导入（例如 回填历史数据），效果等同于 {@linkplain #execute(StringRedisTemplate, String, long, long, Map)}。
+	 * <pre>
+	 *   1. 只有score最大的`fixedSize`个member可能被保留，所以只导入这部分；
+	 *   2. 按`chunkSize`拆分成多次lua调用（pipeline），避免`unpack`超过限制 以及 长时间阻塞redis；
+	 *   3. 所有数据写入后，只执行一次 trim 和 EXPIRE。
+	 * </pre>
+	 *
+	 * @param memberScores key: member, value: score
+	 * @param progress 参数：已导入的member数量、需要导入的member总数量。可以为null
+	 */
+	public static Boolean bulkExecute(StringRedisTemplate redisTemplate, String key, long fixedSize, long expiredSeconds,
+			Map<String, Double> memberScores, int chunkSize, BiConsumer<Integer, Integer> progress){
+
+		List<String> args = memberScores.entrySet().stream()
+				.sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+				.limit(fixedSize)
+				.flatMap(entry -> Stream.of(entry.getValue() + "", entry.getKey()))
+				.collect(Collectors.toList());
+
+		int total = args.size() / 2;
+		RedisScriptPipelineUtils.evalshaChunked(redisTemplate, RECENTLY_USED_CHUNK_SCRIPT, key, args,
+				chunkSize * 2, BULK_CHUNKS_PER_PIPELINE, progress == null ? null : sent -> progress.accept(sent / 2, total));
+
+		return redisTemplate.execute(RECENTLY_USED_TRIM_SCRIPT, Lists.newArrayList(key), fixedSize + "", expiredSeconds + "");
+	}
+
+	public static Boolean bulkExecute(StringRedisTemplate redisTemplate, String key, long fixedSize, long expiredSeconds,
+			Map<String, Double> memberScores, BiConsumer<Integer, Integer> progress){
+		return bulkExecute(redisTemplate, key, fixedSize, expiredSeconds, memberScores, DEFAULT_BULK_CHUNK_SIZE, progress);
+	}
+
+	/**
+	 * @return `recently-used-write-scores.lua`的ARGV
+	 */
+	public static List<String> scoresArgs(long fixedSize, long expiredSeconds, Map<String, Double> memberScores){
+		List<String> args = Lists.newArrayListWithCapacity(memberScores.size() * 2 + 2);
+		args.add(fixedSize + "");
+		args.add(expiredSeconds + "");
+		memberScores.forEach((member, score) -> {
+			args.add(score + "");
+			args.add(member);
+		});
+
+		return args;
+	}
 }
@@ -1,6 +1,8 @@
 package com.vergilyn.examples.redis.usage.u0002.cache;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import com.vergilyn.examples.commons.domain.PageRequest;
 import com.vergilyn.examples.commons.domain.Tuple;
@@ -52,6 +54,13 @@ public interface RecentlyUseCache<T> {
 	 */
 	boolean add(String userId, List<String> members);
 
+	/**
+	 * 多用户批量添加（例如 根据日志回填历史数据）
+	 * @param userMembers key: 最近使用者ID, value: {最近使用的资源: 使用时间}
+	 * @return key: 最近使用者ID, value: true, 添加到最近使用成功
+	 */
+	Map<String, Boolean> addAll(Map<String, Map<String, LocalDateTime>> userMembers);
+
 	boolean delete(String userId);
 
 	enum SourceTypeEnum {
@@ -4,16 +4,23 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.alibaba.fastjson.JSON;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.vergilyn.examples.commons.domain.PageRequest;
 import com.vergilyn.examples.commons.domain.Tuple;
+import com.vergilyn.examples.commons.redis.BigKeyDeleter;
 import com.vergilyn.examples.commons.redis.RedisClientFactory;
+import com.vergilyn.examples.redis.usage.u0002.RecentlyUsedBufferedWriter;
+import com.vergilyn.examples.redis.usage.u0002.RecentlyUsedBulkWriter;
 import com.vergilyn.examples.redis.usage.u0002.RecentlyUsedOperation;
 import com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache;
+import com.vergilyn.examples.redis.usage.u0002.cache.source.SourceEntityCache;
 import com.vergilyn.examples.redis.usage.u0002.cache.strategy.AbstractStrategy;
+import com.vergilyn.examples.redis.usage.u0002.cache.trending.TrendingSourceIndex;
 import com.vergilyn.examples.redis.usage.u0002.entity.AbstractEntity;
 
 import lombok.extern.slf4j.Slf4j;
@@ -21,7 +28,10 @@ import org.springframework.data.redis.core.StringRedisTemplate;
 
 @Slf4j
 public abstract class AbstractRecentlyUseCache<ID, T extends AbstractEntity<ID>> implements RecentlyUseCache<T> {
+	private static final DateTimeFormatter SCORE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
 	protected final StringRedisTemplate stringRedisTemplate = RedisClientFactory.getInstance().stringRedisTemplate();
+	protected final BigKeyDeleter bigKeyDeleter = new BigKeyDeleter(stringRedisTemplate);
 
 	protected abstract SourceTypeEnum getSourceType();
 	protected abstract List<T> listByIds(List<ID> ids);
@@ -39,6 +49,31 @@ public abstract class AbstractRecentlyUseCache<ID, T extends AbstractEntity<ID>>
 
 	private final AbstractStrategy<ID, T> strategy;
 
+	/**
+	 * null, 不使用资源实体缓存（每次都调用{@linkplain #listByIds(List)}）
+	 */
+	private SourceEntityCache<ID, T> entityCache;
+
+	/**
+	 * null, 每次add都直接写入redis
+	 */
+	private RecentlyUsedBufferedWriter bufferedWriter;
+
+	/**
+	 * null, 过期的member只能由 fixed-size 或 key过期 清理
+	 */
+	private ExpiredMemberSweeper expirySweeper;
+
+	/**
+	 * null, 不统计资源热度
+	 */
+	private TrendingSourceIndex trendingIndex;
+
+	/**
+	 * {@linkplain #addAll(Map)}，null 时使用默认配置创建
+	 */
+	private volatile RecentlyUsedBulkWriter bulkWriter;
+
 	public AbstractRecentlyUseCache(long maxSize, long expiredSeconds, AbstractStrategy<ID, T> strategy) {
 		this._maxSize = maxSize;
 		this._expiredSeconds = expiredSeconds;
@@ -48,9 +83,6 @@ public abstract class AbstractRecentlyUseCache<ID, T extends AbstractEntity<ID>>
 	@Override
 	public Tuple<Long, List<T>> listSourcePage(String userId, PageRequest pageRequest) {
 		String redisKey = key(userId);
-		if (strategy.isStrictlyControlExpired()){
-			strictlyControlExpired(redisKey);
-		}
 
 		strategy.preparePageQuery(redisKey, pageRequest);
 
@@ -67,12 +99,15 @@ public abstract class AbstractRecentlyUseCache<ID, T extends AbstractEntity<ID>>
 	}
 
 	/**
-	 * 严格控制每个资源最近使用的失效时间（不只由key控制）
-	 * @param redisKey
+	 * 严格控制每个资源最近使用的失效时间（不只由key控制）：查询时只返回 score >= minScore 的member。
+	 *
+	 * <p>
+	 *   vergilyn-comment, 2026-10-19 >>>> 之前是每次查询前`removeRangeByScore(0, minScore)`，导致读操作中包含写操作（无法读从库）。
+	 *   现在由{@linkplain ExpiredMemberSweeper}在后台删除过期的member，查询时只过滤。
+	 * </p>
 	 */
-	protected void strictlyControlExpired(String redisKey){
-		double minScore = buildScore(LocalDateTime.now().plusSeconds(-getExpiredSeconds()));
-		stringRedisTemplate.boundZSetOps(redisKey).removeRangeByScore(0, minScore);
+	protected double strictlyMinScore(){
+		return buildScore(LocalDateTime.now().plusSeconds(-getExpiredSeconds()));
 	}
 
 	/**
@@ -93,7 +128,7 @@ public abstract class AbstractRecentlyUseCache<ID, T extends AbstractEntity<ID>>
 		List<ID> ids = strategy.toId(members);
 
 		// 子类实现 listByIds，且保证`result`顺序与`ids`相同
-		List<T> result = listByIds(ids);
+		List<T> result = entityCache == null ? listByIds(ids) : entityCache.listByIds(ids, this::listByIds);
 
 		result = strategy.prePageQueryCompleted(result, redisKey, pageRequest);
 
@@ -102,7 +137,9 @@ public abstract class AbstractRecentlyUseCache<ID, T extends AbstractEntity<ID>>
 
 	@Override
 	public long getTotal(String redisKey) {
-		Long count = stringRedisTemplate.boundZSetOps(redisKey).zCard();
+		Long count = strategy.isStrictlyControlExpired()
+				? stringRedisTemplate.boundZSetOps(redisKey).count(strictlyMinScore(), Double.POSITIVE_INFINITY)
+				: stringRedisTemplate.boundZSetOps(redisKey).zCard();
 		return count == null ? 0L : count;
 	}
 
@@ -111,7 +148,9 @@ public abstract class AbstractRecentlyUseCache<ID, T extends AbstractEntity<ID>>
 		long start = (long) (pageRequest.getIndex() - 1) * pageRequest.getSize();
 		long end = start + pageRequest.getSize() - 1;
 
-		Set<String> range = stringRedisTemplate.boundZSetOps(redisKey).reverseRange(start, end);
+		Set<String> range = strategy.isStrictlyControlExpired()
+				? stringRedisTemplate.opsForZSet().reverseRangeByScore(redisKey, strictlyMinScore(), Double.POSITIVE_INFINITY, start, pageRequest.getSize())
+				: stringRedisTemplate.boundZSetOps(redisKey).reverseRange(start, end);
 
 		if (range == null || range.isEmpty()){
 			return Collections.emptyList();
@@ -138,18 +177,80 @@ public abstract class AbstractRecentlyUseCache<ID, T extends AbstractEntity<ID>>
 
 		String redisKey = key(userId);
 		double score = buildScore(LocalDateTime.now());
-		Boolean expire = RecentlyUsedOperation.execute(stringRedisTemplate, redisKey,
-														getMaxSize(), getExpiredSeconds(), score, members);
-		boolean result = expire != null && expire;
+
+		boolean result;
+		if (bufferedWriter != null){
+			// 合并写入，只要加入缓冲区即认为成功
+			bufferedWriter.add(redisKey, getMaxSize(), getExpiredSeconds(), score, members);
+			result = true;
+
+			if (trendingIndex != null){
+				trendingIndex.increment(members);
+			}
+		}else if (trendingIndex != null){
+			Boolean expire = RecentlyUsedOperation.executeWithTrending(stringRedisTemplate, redisKey, trendingIndex.currentBucketKey(),
+					getMaxSize(), getExpiredSeconds(), score, trendingIndex.bucketExpiredSeconds(), members);
+			result = expire != null && expire;
+		}else {
+			Boolean expire = RecentlyUsedOperation.execute(stringRedisTemplate, redisKey,
+															getMaxSize(), getExpiredSeconds(), score, members);
+			result = expire != null && expire;
+		}
+		if (expirySweeper != null){
+			expirySweeper.touch(redisKey);
+		}
+
 		addAfter(result, userId, members);
 
 		return result;
 	}
 
+	/**
+	 * vergilyn-comment, 2026-10-19 >>>> 一般用于回填历史数据，所以不统计资源热度（trending）。
+	 */
+	@Override
+	public Map<String, Boolean> addAll(Map<String, Map<String, LocalDateTime>> userMembers) {
+		Map<String, String> userKeys = Maps.newHashMapWithExpectedSize(userMembers.size());
+		Map<String, Map<String, Double>> keyMemberScores = Maps.newHashMapWithExpectedSize(userMembers.size());
+
+		userMembers.forEach((userId, members) -> {
+			String redisKey = key(userId);
+			userKeys.put(userId, redisKey);
+
+			Map<String, Double> memberScores = Maps.newHashMapWithExpectedSize(members.size());
+			members.forEach((member, usedTime) -> memberScores.put(member, buildScore(usedTime)));
+			keyMemberScores.put(redisKey, memberScores);
+		});
+
+		Map<String, Boolean> keyResults = getBulkWriter().write(keyMemberScores, getMaxSize(), getExpiredSeconds());
+
+		Map<String, Boolean> results = Maps.newHashMapWithExpectedSize(userMembers.size());
+		userKeys.forEach((userId, redisKey) -> {
+			results.put(userId, keyResults.get(redisKey));
+
+			if (expirySweeper != null){
+				expirySweeper.touch(redisKey);
+			}
+		});
+
+		return results;
+	}
+
+	/**
+	 * 最多`_maxSize`个member，`DEL`可能阻塞redis，所以使用{@linkplain BigKeyDeleter}
+	 */
 	@Override
 	public boolean delete(String userId) {
-		Boolean delete = stringRedisTemplate.delete(key(userId));
-		return delete != null && delete;
+		return bigKeyDeleter.delete(key(userId));
+	}
+
+	/**
+	 * 删除所有用户的"最近使用"（限速，会阻塞当前线程）
+	 *
+	 * @return 删除的key数量
+	 */
+	public long purgeAll(){
+		return bigKeyDeleter.purge(key("*"));
 	}
 
 	public long delete(String userId, List<String> members){
@@ -172,17 +273,81 @@ public abstract class AbstractRecentlyUseCache<ID, T extends AbstractEntity<ID>>
 		return actual;
 	}
 
+	/**
+	 * 资源被删除（DB）后调用，之后该资源会被当作无效member移除。
+	 */
+	public void invalidateSource(ID id){
+		if (entityCache != null){
+			entityCache.invalidate(id);
+		}
+	}
+
+	/**
+	 * 设置后，{@linkplain #add(String, List)} 先写入缓冲区，由`bufferedWriter`合并后批量写入redis。
+	 * （即add之后可能需要等待一小段时间才能查询到）
+	 */
+	public void setBufferedWriter(RecentlyUsedBufferedWriter bufferedWriter){
+		this.bufferedWriter = bufferedWriter;
+	}
+
+	public void setEntityCache(SourceEntityCache<ID, T> entityCache){
+		this.entityCache = entityCache;
+	}
+
+	public void setExpirySweeper(ExpiredMemberSweeper expirySweeper){
+		this.expirySweeper = expirySweeper;
+	}
+
+	public void setBulkWriter(RecentlyUsedBulkWriter bulkWriter){
+		this.bulkWriter = bulkWriter;
+	}
+
+	public void setTrendingIndex(TrendingSourceIndex trendingIndex){
+		this.trendingIndex = trendingIndex;
+	}
+
+	/**
+	 * @return first: 资源ID，second: 热度。未设置{@linkplain TrendingSourceIndex}时返回空
+	 */
+	public List<Tuple<String, Double>> listTrending(int k){
+		return trendingIndex == null ? Collections.emptyList() : trendingIndex.top(k);
+	}
+
+	private RecentlyUsedBulkWriter getBulkWriter(){
+		if (bulkWriter == null){
+			synchronized (this){
+				if (bulkWriter == null){
+					bulkWriter = new RecentlyUsedBulkWriter(stringRedisTemplate);
+				}
+			}
+		}
+
+		return bulkWriter;
+	}
+
 	protected void addAfter(boolean result, String userId, List<String> members){
 		log.info("[vergilyn]add {}-recently-used finish >>>> result: {}, userId: {}, source: {}",
 							getSourceType().name(), result, userId, JSON.toJSONString(members));
 	}
 
 	protected double buildScore(LocalDateTime dateTime){
-		return Double.parseDouble(dateTime.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
+		return toScore(dateTime);
+	}
+
+	public static double toScore(LocalDateTime dateTime){
+		return Double.parseDouble(dateTime.format(SCORE_FORMATTER));
+	}
+
+	public static LocalDateTime parseScore(double score){
+		return LocalDateTime.parse(String.format("%.0f", score), SCORE_FORMATTER);
 	}
 
 	private String key(String userId){
-		return String.format("vergilyn:used:%s:%s", getSourceType().name().toLowerCase(), userId);
+		return key(getSourceType(), userId);
+	}
+
+	public static String key(SourceTypeEnum sourceType, String userId){
+		return String.format("vergilyn:used:%s:%s", sourceType.name().toLowerCase(), userId);
 	}
 
 	/**
@@ -0,0 +1,211 @@
+package com.vergilyn.examples.redis.usage.u0002.cache.impl;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.vergilyn.examples.commons.redis.RedisClientFactory;
+import com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache.SourceTypeEnum;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.params.ZAddParams;
+
+/**
+ * 后台清理"最近使用"中过期的member（代替查询时的`removeRangeByScore`，使查询成为纯读操作，可以读从库）。
+ *
+ * <pre>
+ *   desc: 需要清理的"最近使用"
+ *   type: ZSET
+ *   key: vergilyn:used-sweep:{source-type}
+ *   member: "最近使用"的redis-key
+ *   score: 下一次有member过期的时间（epoch-second）
+ * </pre>
+ *
+ * <pre>
+ *   1. {@linkplain #touch(String)} 只记录到本地，由{@linkplain #sweep()}批量`ZADD NX`（已存在时保留更早的过期时间）；
+ *   2. {@linkplain #sweep()} 每次获取`batchSize`个已到期的key，pipeline 执行 ZREMRANGEBYSCORE + 获取最早的member，
+ *      然后更新下一次过期时间（key为空时移除），受{@linkplain RateLimiter}限制（每秒处理的key数量）。
+ * </pre>
+ *
+ * <p>
+ *   vergilyn-comment, 2026-10-19 >>>> sweep 与 add 并发时，可能把刚写入的key从tracker中移除（sweep看到的是空key）。
+ *   这种情况下过期的member最终由 key过期 或 fixed-size 清理，而查询始终会过滤过期的member，所以不影响正确性。
+ * </p>
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+@Slf4j
+public class ExpiredMemberSweeper implements AutoCloseable {
+	public static final int DEFAULT_BATCH_SIZE = 100;
+	public static final double DEFAULT_KEYS_PER_SECOND = 500;
+	public static final long DEFAULT_PERIOD_SECONDS = 10;
+
+	protected final StringRedisTemplate stringRedisTemplate = RedisClientFactory.getInstance().stringRedisTemplate();
+
+	private final SourceTypeEnum sourceType;
+	private final long expiredSeconds;
+	private final int batchSize;
+	private final RateLimiter rateLimiter;
+
+	private final Set<String> touched = ConcurrentHashMap.newKeySet();
+	private ScheduledExecutorService scheduler;
+
+	public ExpiredMemberSweeper(SourceTypeEnum sourceType, long expiredSeconds) {
+		this(sourceType, expiredSeconds, DEFAULT_BATCH_SIZE, DEFAULT_KEYS_PER_SECOND);
+	}
+
+	public ExpiredMemberSweeper(SourceTypeEnum sourceType, long expiredSeconds, int batchSize, double keysPerSecond) {
+		this.sourceType = sourceType;
+		this.expiredSeconds = expiredSeconds;
+		this.batchSize = batchSize;
+		this.rateLimiter = RateLimiter.create(keysPerSecond);
+	}
+
+	/**
+	 * 每`periodSeconds`执行一次{@linkplain #sweep()}
+	 */
+	public synchronized ExpiredMemberSweeper start(long periodSeconds){
+		if (scheduler == null){
+			scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+					.setNameFormat("recently-used-sweeper-" + sourceType.name().toLowerCase() + "-%d")
+					.setDaemon(true)
+					.build());
+			scheduler.scheduleWithFixedDelay(this::sweepQuietly, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+		}
+
+		return this;
+	}
+
+	/**
+	 * "最近使用"写入后调用
+	 */
+	public void touch(String redisKey){
+		touched.add(redisKey);
+	}
+
+	/**
+	 * @return 处理的key数量
+	 */
+	public int sweep(){
+		flushTouched();
+
+		int swept = 0;
+		List<String> due;
+		do {
+			long now = nowEpochSecond();
+			Set<String> range = stringRedisTemplate.opsForZSet().rangeByScore(trackerKey(), Double.NEGATIVE_INFINITY, now, 0, batchSize);
+			due = range == null ? Lists.newArrayList() : Lists.newArrayList(range);
+
+			if (!due.isEmpty()){
+				rateLimiter.acquire(due.size());
+				sweep(due);
+				swept += due.size();
+			}
+		}while (due.size() >= batchSize);
+
+		if (swept > 0 && log.isDebugEnabled()){
+			log.debug("[vergilyn]sweep {}-recently-used expired members >>>> keys: {}", sourceType.name(), swept);
+		}
+
+		return swept;
+	}
+
+	public String trackerKey(){
+		return String.format("vergilyn:used-sweep:%s", sourceType.name().toLowerCase());
+	}
+
+	@PreDestroy
+	@Override
+	public synchronized void close() {
+		if (scheduler != null){
+			scheduler.shutdownNow();
+		}
+
+		flushTouched();
+	}
+
+	private void flushTouched(){
+		if (touched.isEmpty()){
+			return;
+		}
+
+		List<String> keys = Lists.newArrayList(touched);
+		touched.removeAll(keys);
+
+		double expireAt = nowEpochSecond() + expiredSeconds;
+		stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+			Pipeline pipeline = ((Jedis) connection.getNativeConnection()).pipelined();
+			for (String key : keys){
+				pipeline.zadd(trackerKey(), expireAt, key, ZAddParams.zAddParams().nx());
+			}
+			pipeline.sync();
+			return null;
+		});
+	}
+
+	private void sweep(List<String> keys){
+		String trackerKey = trackerKey();
+		String maxExpiredScore = "(" + String.format("%.0f", AbstractRecentlyUseCache.toScore(LocalDateTime.now().minusSeconds(expiredSeconds)));
+
+		stringRedisTemplate.execute((RedisCallback<Void>) connection -> {
+			Jedis jedis = (Jedis) connection.getNativeConnection();
+
+			Pipeline pipeline = jedis.pipelined();
+			List<Response<Set<Tuple>>> oldest = Lists.newArrayListWithCapacity(keys.size());
+			for (String key : keys){
+				pipeline.zremrangeByScore(key, "-inf", maxExpiredScore);
+				oldest.add(pipeline.zrangeWithScores(key, 0, 0));
+			}
+			pipeline.sync();
+
+			pipeline = jedis.pipelined();
+			for (int i = 0, len = keys.size(); i < len; i++){
+				Set<Tuple> tuples = oldest.get(i).get();
+
+				if (tuples == null || tuples.isEmpty()){
+					pipeline.zrem(trackerKey, keys.get(i));
+				}else {
+					// +1: 避免同一秒内反复sweep同一个key
+					long nextExpireAt = toEpochSecond(tuples.iterator().next().getScore()) + expiredSeconds + 1;
+					pipeline.zadd(trackerKey, nextExpireAt, keys.get(i), ZAddParams.zAddParams().xx());
+				}
+			}
+			pipeline.sync();
+
+			return null;
+		});
+	}
+
+	private void sweepQuietly(){
+		try {
+			sweep();
+		}catch (Exception e){
+			log.error("[vergilyn]sweep {}-recently-used error >>>> {}", sourceType.name(), e.getMessage(), e);
+		}
+	}
+
+	private long toEpochSecond(double score){
+		return AbstractRecentlyUseCache.parseScore(score).atZone(ZoneId.systemDefault()).toEpochSecond();
+	}
+
+	private long nowEpochSecond(){
+		return System.currentTimeMillis() / 1000;
+	}
+}
@@ -9,6 +9,7 @@ import com.google.common.collect.Lists;
 import com.vergilyn.examples.commons.domain.Tuple;
 import com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache;
 import com.vergilyn.examples.redis.usage.u0002.cache.data.ImageRepositories;
+import com.vergilyn.examples.redis.usage.u0002.cache.source.SourceEntityCache;
 import com.vergilyn.examples.redis.usage.u0002.cache.strategy.AbstractStrategy;
 import com.vergilyn.examples.redis.usage.u0002.cache.strategy.FillInvalidDataStrategy;
 import com.vergilyn.examples.redis.usage.u0002.entity.AbstractEntity;
@@ -35,6 +36,7 @@ public class ImageRecentlyUseCacheImpl extends AbstractRecentlyUseCache<Integer,
 	public ImageRecentlyUseCacheImpl(long maxSize, long expiredSeconds, AbstractStrategy<Integer, SourceImageEntity> strategy) {
 		super(maxSize, expiredSeconds, strategy);
 
+		setEntityCache(new SourceEntityCache<>(IMAGE, SourceImageEntity.class, TimeUnit.DAYS.toSeconds(1)));
 	}
 
 	@Override
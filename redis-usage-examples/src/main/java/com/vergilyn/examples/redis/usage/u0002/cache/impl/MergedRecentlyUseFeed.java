@@ -0,0 +1,113 @@
+package com.vergilyn.examples.redis.usage.u0002.cache.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.vergilyn.examples.commons.domain.Tuple;
+import com.vergilyn.examples.commons.redis.RedisClientFactory;
+import com.vergilyn.examples.commons.utils.LuaScriptReadUtils;
+import com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache.SourceTypeEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * 多个类型（例如 IMAGE + VIDEO）合并后的"最近使用"，按使用时间倒序。
+ *
+ * <p>
+ *   各个类型分别保存在`vergilyn:used:{type}:{userId}`，客户端分别分页再合并的话，深分页的结果是错误的。
+ *   所以由`recently-used-merged-feed.lua`在redis中 k-way merge，每个类型最多读取`limit`个member，不需要ZUNIONSTORE。
+ * </p>
+ *
+ * <p>
+ *   使用 keyset-cursor 分页（上一页最后一条的`{score}:{type}:{member}`），不受新增"最近使用"的影响。
+ *   score相同时，按构造函数中`sourceTypes`的顺序。
+ * </p>
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class MergedRecentlyUseFeed {
+	private static final RedisScript<List> MERGED_FEED_SCRIPT = RedisScript.of(
+			LuaScriptReadUtils.getScript(MergedRecentlyUseFeed.class, "recently-used-merged-feed.lua"), List.class);
+
+	private static final String CURSOR_SEPARATOR = ":";
+
+	protected final StringRedisTemplate stringRedisTemplate = RedisClientFactory.getInstance().stringRedisTemplate();
+
+	private final List<SourceTypeEnum> sourceTypes;
+
+	public MergedRecentlyUseFeed(SourceTypeEnum... sourceTypes) {
+		this.sourceTypes = Collections.unmodifiableList(Arrays.asList(sourceTypes));
+	}
+
+	/**
+	 *
+	 * @param userId 最近使用者ID
+	 * @param cursor null/空字符串 表示第一页，否则是上一页返回的cursor
+	 * @param limit 每页数量
+	 * @return first: 下一页的cursor，null 表示没有更多数据； second: 最近使用的资源
+	 */
+	@SuppressWarnings("unchecked")
+	public Tuple<String, List<FeedItem>> list(String userId, String cursor, int limit){
+		List<String> keys = sourceTypes.stream()
+				.map(type -> AbstractRecentlyUseCache.key(type, userId))
+				.collect(Collectors.toList());
+
+		List<String> result = (List<String>) stringRedisTemplate.execute(MERGED_FEED_SCRIPT, keys, args(cursor, limit));
+
+		if (result == null || result.isEmpty()){
+			return Tuple.of(null, Collections.emptyList());
+		}
+
+		List<FeedItem> items = Lists.newArrayListWithCapacity(result.size() / 3);
+		for (int i = 0, len = result.size(); i < len; i += 3){
+			SourceTypeEnum type = sourceTypes.get(Integer.parseInt(result.get(i)) - 1);
+			items.add(new FeedItem(type, result.get(i + 1), result.get(i + 2)));
+		}
+
+		String next = items.size() < limit ? null : items.get(items.size() - 1).cursor();
+		return Tuple.of(next, items);
+	}
+
+	private Object[] args(String cursor, int limit){
+		if (StringUtils.isBlank(cursor)){
+			return new Object[]{ limit + "", "", "0", "" };
+		}
+
+		// member 可能包含`:`
+		String[] parts = cursor.split(CURSOR_SEPARATOR, 3);
+		if (parts.length != 3){
+			throw new IllegalArgumentException("invalid cursor: " + cursor);
+		}
+
+		int index = sourceTypes.indexOf(SourceTypeEnum.valueOf(parts[1]));
+		if (index < 0){
+			throw new IllegalArgumentException("invalid cursor, source-type not in feed: " + cursor);
+		}
+
+		return new Object[]{ limit + "", parts[0], (index + 1) + "", parts[2] };
+	}
+
+	@Data
+	@AllArgsConstructor
+	public static class FeedItem {
+		private SourceTypeEnum sourceType;
+		private String member;
+
+		/**
+		 * 与redis返回的score相同（字符串），避免double转换后cursor不一致
+		 */
+		private String score;
+
+		public String cursor(){
+			return score + CURSOR_SEPARATOR + sourceType.name() + CURSOR_SEPARATOR + member;
+		}
+	}
+}
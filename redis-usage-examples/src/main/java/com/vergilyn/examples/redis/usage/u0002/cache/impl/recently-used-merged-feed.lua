@@ -0,0 +1,76 @@
+--- 多个类型的"最近使用"合并（k-way merge），按 score 倒序；score相同时按KEYS的顺序，同一个KEY内按member倒序（与ZREVRANGE一致）。
+--- 不使用ZUNIONSTORE（每次请求都会生成一个临时的合并结果）。每个KEY最多读取 limit 个member。
+--- KEYS[1+]: 各个类型的"最近使用" ZSET
+--- ARGV[1]: limit
+--- ARGV[2]: cursor-score, 空字符串表示第一页
+--- ARGV[3]: cursor-key-index（从1开始）
+--- ARGV[4]: cursor-member
+--- return: [key-index, member, score, ...]
+
+local limit = tonumber(ARGV[1]);
+local has_cursor = ARGV[2] ~= "";
+local cursor_score = ARGV[2];
+local cursor_index = tonumber(ARGV[3]);
+local cursor_member = ARGV[4];
+
+local lists = {};
+for i, key in ipairs(KEYS) do
+    local list;
+    if (not has_cursor) then
+        list = redis.call("ZREVRANGEBYSCORE", key, "+inf", "-inf", "WITHSCORES", "LIMIT", 0, limit);
+    elseif (i < cursor_index) then
+        list = redis.call("ZREVRANGEBYSCORE", key, "(" .. cursor_score, "-inf", "WITHSCORES", "LIMIT", 0, limit);
+    elseif (i > cursor_index) then
+        list = redis.call("ZREVRANGEBYSCORE", key, cursor_score, "-inf", "WITHSCORES", "LIMIT", 0, limit);
+    else
+        --- 与cursor相同score的member（同一秒内使用的资源，数量很少）：只保留排在cursor-member之后的
+        list = {};
+        local same = redis.call("ZREVRANGEBYSCORE", key, cursor_score, cursor_score, "WITHSCORES");
+        for j = 1, #same, 2 do
+            if (same[j] < cursor_member and #list < limit * 2) then
+                table.insert(list, same[j]);
+                table.insert(list, same[j + 1]);
+            end
+        end
+
+        local less = redis.call("ZREVRANGEBYSCORE", key, "(" .. cursor_score, "-inf", "WITHSCORES", "LIMIT", 0, limit - math.floor(#list / 2));
+        for j = 1, #less do
+            table.insert(list, less[j]);
+        end
+    end
+    lists[i] = list;
+end
+
+local result = {};
+local positions = {};
+for i = 1, #KEYS do
+    positions[i] = 1;
+end
+
+for _ = 1, limit do
+    local best = nil;
+    local best_score = nil;
+    for i = 1, #KEYS do
+        local position = positions[i];
+        if (position < #lists[i]) then
+            local score = tonumber(lists[i][position + 1]);
+            --- score相同时，KEYS靠前的优先（`>`）
+            if (best == nil or score > best_score) then
+                best = i;
+                best_score = score;
+            end
+        end
+    end
+
+    if (best == nil) then
+        break;
+    end
+
+    local position = positions[best];
+    table.insert(result, tostring(best));
+    table.insert(result, lists[best][position]);
+    table.insert(result, lists[best][position + 1]);
+    positions[best] = position + 2;
+end
+
+return result;
@@ -0,0 +1,187 @@
+package com.vergilyn.examples.redis.usage.u0002.cache.source;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.vergilyn.examples.commons.redis.RedisClientFactory;
+import com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache.SourceTypeEnum;
+import com.vergilyn.examples.redis.usage.u0002.entity.AbstractEntity;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 资源实体缓存（所有用户共享），查询顺序：L1(local) -> L2(redis-string, `MGET`) -> DB。
+ *
+ * <pre>
+ *   desc: 资源实体
+ *   type: STRING
+ *   key: vergilyn:source:{source-type}:{id}
+ *   value: entity-json; 空字符串表示 DB中已删除/不存在（tombstone）
+ *   expired: `expiredSeconds`，从DB回写时设置
+ * </pre>
+ *
+ * <p>
+ *   vergilyn-comment, 2026-10-19 >>>> 之前是每个source-type一个HASH，每次回写都刷新整个HASH的失效时间，
+ *   只要一直有查询，HASH就永远不会失效（只增不减）。现在每个资源一个key，各自失效。
+ * </p>
+ *
+ * <p>
+ *   tombstone 不会出现在 {@linkplain #listByIds(List, Function)} 的结果中，
+ *   调用方（例如{@linkplain com.vergilyn.examples.redis.usage.u0002.cache.strategy.FillInvalidDataStrategy}）会把这些id当作无效member处理。
+ * </p>
+ *
+ * <p>
+ *   vergilyn-comment, 2026-10-19 >>>> L1只在当前进程失效，其它进程最多延迟{@linkplain #LOCAL_EXPIRED_SECONDS}才能感知到
+ *   {@linkplain #invalidate(Object)}/{@linkplain #evict(Object)}。资源被修改（非删除）时，需要调用{@linkplain #evict(Object)}。
+ * </p>
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+@Slf4j
+public class SourceEntityCache<ID, T extends AbstractEntity<ID>> {
+	public static final long LOCAL_EXPIRED_SECONDS = 60;
+	public static final long LOCAL_MAXIMUM_SIZE = 10_000;
+
+	private static final String TOMBSTONE = "";
+
+	protected final StringRedisTemplate stringRedisTemplate = RedisClientFactory.getInstance().stringRedisTemplate();
+
+	private final SourceTypeEnum sourceType;
+	private final Class<T> entityClass;
+	private final long expiredSeconds;
+
+	/**
+	 * value: {@linkplain Optional#empty()} 表示 tombstone
+	 */
+	private final Cache<ID, Optional<T>> local;
+
+	public SourceEntityCache(SourceTypeEnum sourceType, Class<T> entityClass, long expiredSeconds) {
+		this.sourceType = sourceType;
+		this.entityClass = entityClass;
+		this.expiredSeconds = expiredSeconds;
+		this.local = CacheBuilder.newBuilder()
+				.maximumSize(LOCAL_MAXIMUM_SIZE)
+				.expireAfterWrite(LOCAL_EXPIRED_SECONDS, TimeUnit.SECONDS)
+				.build();
+	}
+
+	/**
+	 *
+	 * @param ids 需要查询的ids
+	 * @param loader 只用于查询 L1、L2 都未命中的ids，例如 DB
+	 * @return 与`ids`顺序相同，不包含 已删除/不存在 的数据
+	 */
+	public List<T> listByIds(List<ID> ids, Function<List<ID>, List<T>> loader){
+		Map<ID, Optional<T>> hits = Maps.newHashMap(local.getAllPresent(ids));
+
+		List<ID> misses = ids.stream().filter(id -> !hits.containsKey(id)).collect(Collectors.toList());
+		if (!misses.isEmpty()){
+			Map<ID, Optional<T>> remote = getRemote(misses);
+			local.putAll(remote);
+			hits.putAll(remote);
+
+			misses.removeIf(remote::containsKey);
+		}
+
+		if (!misses.isEmpty()){
+			Map<ID, Optional<T>> loaded = load(misses, loader);
+			local.putAll(loaded);
+			hits.putAll(loaded);
+		}
+
+		List<T> result = Lists.newArrayListWithCapacity(ids.size());
+		for (ID id : ids){
+			hits.getOrDefault(id, Optional.empty()).ifPresent(result::add);
+		}
+
+		return result;
+	}
+
+	/**
+	 * 资源被删除时调用，之后该id会被当作无效member。
+	 */
+	public void invalidate(ID id){
+		stringRedisTemplate.opsForValue().set(key(id), TOMBSTONE, expiredSeconds, TimeUnit.SECONDS);
+		local.put(id, Optional.empty());
+	}
+
+	/**
+	 * 资源被修改时调用，下次查询会重新从DB获取。
+	 */
+	public void evict(ID id){
+		stringRedisTemplate.delete(key(id));
+		local.invalidate(id);
+	}
+
+	public String key(ID id){
+		return String.format("vergilyn:source:%s:%s", sourceType.name().toLowerCase(), id);
+	}
+
+	private Map<ID, Optional<T>> getRemote(List<ID> ids){
+		List<String> keys = ids.stream().map(this::key).collect(Collectors.toList());
+		List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+
+		Map<ID, Optional<T>> result = Maps.newHashMapWithExpectedSize(ids.size());
+		if (values == null){
+			return result;
+		}
+
+		String value;
+		for (int i = 0, len = ids.size(); i < len; i++){
+			value = values.get(i);
+			if (value == null){
+				continue;
+			}
+
+			result.put(ids.get(i), TOMBSTONE.equals(value) ? Optional.empty() : Optional.of(JSON.parseObject(value, entityClass)));
+		}
+
+		return result;
+	}
+
+	private Map<ID, Optional<T>> load(List<ID> ids, Function<List<ID>, List<T>> loader){
+		Map<ID, T> entities = loader.apply(ids).stream()
+				.collect(Collectors.toMap(AbstractEntity::getId, Function.identity(), (o1, o2) -> o1));
+
+		Map<ID, Optional<T>> result = Maps.newHashMapWithExpectedSize(ids.size());
+		Map<String, String> values = Maps.newHashMapWithExpectedSize(ids.size());
+		T entity;
+		for (ID id : ids){
+			entity = entities.get(id);
+
+			// DB不存在（物理删除） 或 逻辑删除，都缓存为 tombstone，避免反复穿透到DB
+			if (entity == null || entity.isDeleted()){
+				result.put(id, Optional.empty());
+				values.put(key(id), TOMBSTONE);
+			}else {
+				result.put(id, Optional.of(entity));
+				values.put(key(id), JSON.toJSONString(entity));
+			}
+		}
+
+		stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			StringRedisConnection conn = (StringRedisConnection) connection;
+			values.forEach((key, value) -> conn.setEx(key, expiredSeconds, value));
+			return null;
+		});
+
+		if (log.isDebugEnabled()){
+			log.debug("[vergilyn]load {}-source from db >>>> ids: {}", sourceType.name(), JSON.toJSONString(ids));
+		}
+
+		return result;
+	}
+}
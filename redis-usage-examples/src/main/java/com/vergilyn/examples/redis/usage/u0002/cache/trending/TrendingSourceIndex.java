@@ -0,0 +1,146 @@
+package com.vergilyn.examples.redis.usage.u0002.cache.trending;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.vergilyn.examples.commons.domain.Tuple;
+import com.vergilyn.examples.commons.redis.RedisClientFactory;
+import com.vergilyn.examples.commons.utils.LuaScriptReadUtils;
+import com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache.SourceTypeEnum;
+
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * 资源热度（trending），由"最近使用"的写入累加（{@linkplain com.vergilyn.examples.redis.usage.u0002.RecentlyUsedOperation#executeWithTrending}）。
+ *
+ * <pre>
+ *   desc: 某个时间段内，资源被使用的次数
+ *   type: ZSET
+ *   key: vergilyn:trending:{source-type}:{bucket}, bucket = epoch-second / bucketSeconds
+ *   member: 资源ID
+ *   score: 使用次数
+ *   expired: bucketSeconds * (buckets + 1)
+ * </pre>
+ *
+ * <p>
+ *   top-K：合并最近`buckets`个时间段，第`i`个（0: 当前时间段）的权重是`decay^i`。
+ *   结果在本地缓存`localCacheSeconds`，所以大量的查询请求不会访问redis。
+ * </p>
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class TrendingSourceIndex {
+	public static final long DEFAULT_BUCKET_SECONDS = TimeUnit.HOURS.toSeconds(1);
+	public static final int DEFAULT_BUCKETS = 24;
+	public static final double DEFAULT_DECAY = 0.8;
+	public static final long DEFAULT_LOCAL_CACHE_SECONDS = 5;
+
+	private static final RedisScript<List> TRENDING_TOP_SCRIPT = RedisScript.of(
+			LuaScriptReadUtils.getScript(TrendingSourceIndex.class, "trending-top.lua"), List.class);
+
+	protected final StringRedisTemplate stringRedisTemplate = RedisClientFactory.getInstance().stringRedisTemplate();
+
+	private final SourceTypeEnum sourceType;
+	private final long bucketSeconds;
+	private final int buckets;
+	private final double decay;
+
+	/**
+	 * key: K
+	 */
+	private final LoadingCache<Integer, List<Tuple<String, Double>>> local;
+
+	public TrendingSourceIndex(SourceTypeEnum sourceType) {
+		this(sourceType, DEFAULT_BUCKET_SECONDS, DEFAULT_BUCKETS, DEFAULT_DECAY, DEFAULT_LOCAL_CACHE_SECONDS);
+	}
+
+	public TrendingSourceIndex(SourceTypeEnum sourceType, long bucketSeconds, int buckets, double decay, long localCacheSeconds) {
+		this.sourceType = sourceType;
+		this.bucketSeconds = bucketSeconds;
+		this.buckets = buckets;
+		this.decay = decay;
+		this.local = CacheBuilder.newBuilder()
+				.maximumSize(16)
+				.expireAfterWrite(localCacheSeconds, TimeUnit.SECONDS)
+				.build(CacheLoader.from(this::loadTop));
+	}
+
+	/**
+	 * @param k 小于等于0时返回空（`ZREVRANGE key 0 -1`会返回全部）
+	 * @return first: 资源ID，second: 热度（已乘以权重）
+	 */
+	public List<Tuple<String, Double>> top(int k){
+		if (k <= 0){
+			return Collections.emptyList();
+		}
+
+		return local.getUnchecked(k);
+	}
+
+	/**
+	 * 不通过"最近使用"的lua脚本时（例如 {@linkplain com.vergilyn.examples.redis.usage.u0002.RecentlyUsedBufferedWriter}），单独累加热度。
+	 */
+	public void increment(List<String> members){
+		if (members == null || members.isEmpty()){
+			return;
+		}
+
+		String key = currentBucketKey();
+		stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			StringRedisConnection conn = (StringRedisConnection) connection;
+			for (String member : members){
+				conn.zIncrBy(key, 1, member);
+			}
+			conn.expire(key, bucketExpiredSeconds());
+			return null;
+		});
+	}
+
+	public String currentBucketKey(){
+		return bucketKey(System.currentTimeMillis() / 1000);
+	}
+
+	public String bucketKey(long epochSecond){
+		return String.format("vergilyn:trending:%s:%d", sourceType.name().toLowerCase(), epochSecond / bucketSeconds);
+	}
+
+	public long bucketExpiredSeconds(){
+		return bucketSeconds * (buckets + 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Tuple<String, Double>> loadTop(int k){
+		long now = System.currentTimeMillis() / 1000;
+
+		List<String> keys = Lists.newArrayListWithCapacity(buckets + 1);
+		keys.add(String.format("vergilyn:trending:%s:top-tmp", sourceType.name().toLowerCase()));
+
+		Object[] args = new Object[buckets + 1];
+		args[0] = k + "";
+		for (int i = 0; i < buckets; i++){
+			keys.add(bucketKey(now - i * bucketSeconds));
+			args[i + 1] = Math.pow(decay, i) + "";
+		}
+
+		List<String> result = (List<String>) stringRedisTemplate.execute(TRENDING_TOP_SCRIPT, keys, args);
+		if (result == null || result.isEmpty()){
+			return Collections.emptyList();
+		}
+
+		List<Tuple<String, Double>> top = Lists.newArrayListWithCapacity(result.size() / 2);
+		for (int i = 0, len = result.size(); i < len; i += 2){
+			top.add(Tuple.of(result.get(i), Double.valueOf(result.get(i + 1))));
+		}
+
+		return Collections.unmodifiableList(top);
+	}
+}
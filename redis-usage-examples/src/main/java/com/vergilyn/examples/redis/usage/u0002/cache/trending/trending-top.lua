@@ -0,0 +1,22 @@
+--- 合并最近N个时间段的热度（越早的时间段权重越小），返回top-K
+--- KEYS[1]: 临时key，ZUNIONSTORE的结果，返回前删除
+--- KEYS[2+]: 各个时间段的 ZSET
+--- ARGV[1]: K
+--- ARGV[2+]: 与KEYS[2+]对应的权重
+--- return: [member, score, ...]
+
+--- ZUNIONSTORE destination numkeys key [key ...] WEIGHTS weight [weight ...]
+--- 注意：`unpack`只有作为最后一个参数时才会展开全部元素
+local args = { KEYS[1], #KEYS - 1 };
+for i = 2, #KEYS do
+    table.insert(args, KEYS[i]);
+end
+table.insert(args, "WEIGHTS");
+for i = 2, #ARGV do
+    table.insert(args, ARGV[i]);
+end
+
+redis.call("ZUNIONSTORE", unpack(args));
+local top = redis.call("ZREVRANGE", KEYS[1], 0, tonumber(ARGV[1]) - 1, "WITHSCORES");
+redis.call("DEL", KEYS[1]);
+return top;
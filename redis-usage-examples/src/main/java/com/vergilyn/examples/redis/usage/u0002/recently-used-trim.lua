@@ -0,0 +1,11 @@
+--- "最近使用" 分批导入完成后，保留最新的 fixed-size 个member，并刷新过期时间
+--- KEYS[1]:
+--- ARGV[1]: fixed-size
+--- ARGV[2]: expired (s)
+
+local fixed_size = tonumber(ARGV[1]);
+local count = redis.call("ZCARD", KEYS[1]);
+if (count > fixed_size) then
+    redis.call("ZREMRANGEBYRANK", KEYS[1], 0, count - fixed_size - 1);
+end
+return redis.call("EXPIRE", KEYS[1], ARGV[2]);
@@ -0,0 +1,5 @@
+--- "最近使用" 分批导入：只ZADD，最后再执行一次`recently-used-trim.lua`
+--- KEYS[1]:
+--- ARGV[1+]: score member [score member ...]
+
+return redis.call("ZADD", KEYS[1], unpack(ARGV));
@@ -0,0 +1,15 @@
+--- "最近使用"，与`recently-used-write.lua`相同，区别是每个member都有自己的score（例如 合并多次写入时，保留各自的使用时间）
+--- KEYS[1]:
+--- ARGV[1]: fixed-size
+--- ARGV[2]: expired (s)
+--- ARGV[3+]: score member [score member ...]
+
+--- ZADD key [NX|XX] [CH] [INCR] score member [score member ...]
+redis.call("ZADD", KEYS[1], unpack(ARGV, 3));
+
+local fixed_size = tonumber(ARGV[1]);
+local count = redis.call("ZCARD", KEYS[1]);
+if (count > fixed_size) then
+    redis.call("ZREMRANGEBYRANK", KEYS[1], 0, count - fixed_size - 1);
+end
+return redis.call("EXPIRE", KEYS[1], ARGV[2]);
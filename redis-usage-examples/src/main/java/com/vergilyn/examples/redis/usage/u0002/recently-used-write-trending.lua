@@ -0,0 +1,29 @@
+--- "最近使用"，与`recently-used-write.lua`相同，同时累加资源的热度（trending）
+--- 注意：KEYS[1]与KEYS[2]不在同一个slot，不支持redis-cluster
+--- KEYS[1]: "最近使用"
+--- KEYS[2]: trending当前时间段的 ZSET
+--- ARGV[1]: fixed-size
+--- ARGV[2]: expired (s)
+--- ARGV[3]: score
+--- ARGV[4]: trending-bucket expired (s)
+--- ARGV[5+]: members
+
+local score_members = {};
+for key,value in ipairs(ARGV)
+do
+    if (key >= 5) then
+        table.insert(score_members, ARGV[3]);
+        table.insert(score_members, value);
+        redis.call("ZINCRBY", KEYS[2], 1, value);
+    end
+end
+redis.call("EXPIRE", KEYS[2], ARGV[4]);
+
+redis.call("ZADD", KEYS[1], unpack(score_members));
+
+local fixed_size = tonumber(ARGV[1]);
+local count = redis.call("ZCARD", KEYS[1]);
+if (count > fixed_size) then
+    redis.call("ZREMRANGEBYRANK", KEYS[1], 0, count - fixed_size - 1);
+end
+return redis.call("EXPIRE", KEYS[1], ARGV[2]);
@@ -0,0 +1,162 @@
+package com.vergilyn.examples.redis.usage.u0100.cache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+
+/**
+ * H2（file模式 或 server模式）保存归档的用户点赞行为。
+ * <pre>
+ * user_praise_archive(user_id, field, praise_value), PRIMARY KEY(user_id, field)
+ * </pre>
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+public class H2UserPraiseArchiveStore implements UserPraiseArchiveStore {
+    private static final int IN_CHUNK_SIZE = 500;
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS user_praise_archive ("
+            + "user_id BIGINT NOT NULL, field VARCHAR(64) NOT NULL, praise_value BIGINT NOT NULL, "
+            + "PRIMARY KEY (user_id, field))";
+
+    private final DataSource dataSource;
+
+    public H2UserPraiseArchiveStore(DataSource dataSource) {
+        this.dataSource = dataSource;
+
+        execute(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @param path 例如 `./data/user-praise-archive`
+     */
+    public static H2UserPraiseArchiveStore file(String path) {
+        return new H2UserPraiseArchiveStore(JdbcConnectionPool.create("jdbc:h2:file:" + path, "sa", ""));
+    }
+
+    @Override
+    public void save(Long userId, Map<String, Long> praises) {
+        execute(connection -> {
+            // 连接池中的连接，归还前恢复原来的auto-commit
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM user_praise_archive WHERE user_id = ?");
+                 PreparedStatement insert = connection.prepareStatement(
+                         "INSERT INTO user_praise_archive (user_id, field, praise_value) VALUES (?, ?, ?)")) {
+                delete.setLong(1, userId);
+                delete.executeUpdate();
+
+                for (Map.Entry<String, Long> entry : praises.entrySet()) {
+                    insert.setLong(1, userId);
+                    insert.setString(2, entry.getKey());
+                    insert.setLong(3, entry.getValue());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Map<Long, Map<String, Long>> load(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, Map<String, Long>> rs = Maps.newHashMap();
+        for (List<Long> chunk : Iterables.partition(userIds, IN_CHUNK_SIZE)) {
+            execute(connection -> {
+                String sql = "SELECT user_id, field, praise_value FROM user_praise_archive WHERE user_id IN (" + placeholders(chunk.size()) + ")";
+                try (PreparedStatement select = connection.prepareStatement(sql)) {
+                    for (int i = 0, len = chunk.size(); i < len; i++) {
+                        select.setLong(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet resultSet = select.executeQuery()) {
+                        while (resultSet.next()) {
+                            rs.computeIfAbsent(resultSet.getLong(1), k -> Maps.newHashMap())
+                                    .put(resultSet.getString(2), resultSet.getLong(3));
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        return rs;
+    }
+
+    @Override
+    public void delete(Collection<Long> userIds) {
+        for (List<Long> chunk : Iterables.partition(userIds, IN_CHUNK_SIZE)) {
+            execute(connection -> {
+                String sql = "DELETE FROM user_praise_archive WHERE user_id IN (" + placeholders(chunk.size()) + ")";
+                try (PreparedStatement delete = connection.prepareStatement(sql)) {
+                    for (int i = 0, len = chunk.size(); i < len; i++) {
+                        delete.setLong(i + 1, chunk.get(i));
+                    }
+                    delete.executeUpdate();
+                }
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        execute(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM user_praise_archive");
+            }
+            return null;
+        });
+    }
+
+    private <T> T execute(SqlCallback<T> callback) {
+        try (Connection connection = dataSource.getConnection()) {
+            return callback.doInConnection(connection);
+        } catch (SQLException e) {
+            throw new IllegalStateException("user-praise archive error", e);
+        }
+    }
+
+    private static String placeholders(int size) {
+        List<String> placeholders = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < size; i++) {
+            placeholders.add("?");
+        }
+        return String.join(", ", placeholders);
+    }
+
+    @FunctionalInterface
+    private interface SqlCallback<T> {
+        T doInConnection(Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,380 @@
+package com.vergilyn.examples.redis.usage.u0100.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+import com.vergilyn.examples.commons.domain.Tuple;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.Assert;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+/**
+ * 分片的投票数（热点投票活动），代替单个`vote:item:{vote.id}`。
+ * <p>
+ * <pre>
+ * desc：投票数分片，每次投票随机选择一个分片`ZINCRBY`，票数 = 所有分片的score之和
+ * type：sort-set
+ * key：vote:item:{vote.id}:shard:{index}，不使用hash-tag，集群中分布到不同的节点
+ * member：{item.id}
+ * score：{item.count}的一部分
+ * expire：{@link #expireAt(Long, long)}；之后（例如 增加分片数）才创建的分片，由{@link #incr(Long, Long, long)}设置
+ *
+ * desc：每个投票活动的分片数
+ * type：hash
+ * key：vote:item:shards
+ * field：{vote.id} = 当前分片数（写入），{vote.id}:max = 曾经使用过的最大分片数（读取），
+ *   {vote.id}:expire = 分片的失效时间戳（毫秒）
+ * </pre>
+ * </p>
+ * 读取（合并）：
+ * <ol>
+ * <li>{@link MergeMode#UNION_STORE}：`ZUNIONSTORE vote:item:{vote.id}:merged`，缓存`mergeCacheMillis`。
+ * 要求所有分片在同一个slot（单机/哨兵），集群中不可用；</li>
+ * <li>{@link MergeMode#CLIENT}：pipeline读取所有分片后在本地合并，本地缓存`mergeCacheMillis`。</li>
+ * </ol>
+ * 修改分片数：{@link #setShards(Long, int)}后立即生效（本地缓存的分片数最多延迟`shardsCacheMillis`），
+ * 读取总是合并`max`个分片，所以不会丢失票数。减少分片后，可以通过{@link #compact(Long)}把多余的分片合并回去。
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+// @Component
+@Slf4j
+public class ShardedVoteCounter {
+    private static final String K_T_ZSET_VOTE_ITEM_SHARD = "vote:item:%d:shard:%d";
+    private static final String K_T_ZSET_VOTE_ITEM_MERGED = "vote:item:%d:merged";
+    private static final String K_F_HASH_VOTE_ITEM_SHARDS = "vote:item:shards";
+
+    public static final int DEFAULT_SHARDS = 1;
+    public static final long DEFAULT_MERGE_CACHE_MILLIS = 1000;
+    public static final long DEFAULT_SHARDS_CACHE_MILLIS = 5000;
+
+    /**
+     * KEYS[1] = shards-hash, ARGV[1] = vote.id, ARGV[2] = shards
+     */
+    private static final RedisScript<Long> SET_SHARDS_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('hset', KEYS[1], ARGV[1], ARGV[2]); "
+          + "local max = tonumber(redis.call('hget', KEYS[1], ARGV[1] .. ':max') or '0'); "
+          + "if(max < tonumber(ARGV[2])) then "
+          + "  redis.call('hset', KEYS[1], ARGV[1] .. ':max', ARGV[2]); "
+          + "  max = tonumber(ARGV[2]); "
+          + "end "
+          + "return max;", Long.class);
+
+    /**
+     * 分片没有失效时间（新创建的分片）时`PEXPIREAT`，只有一个key，集群中也可用。
+     * KEYS[1] = shard, ARGV[1] = item.id, ARGV[2] = delta, ARGV[3] = 失效时间戳（0: 未设置）
+     */
+    private static final RedisScript<String> INCR_SCRIPT = new DefaultRedisScript<>(
+            "local rs = redis.call('zincrby', KEYS[1], ARGV[2], ARGV[1]); "
+          + "if(ARGV[3] ~= '0' and redis.call('pttl', KEYS[1]) == -1) then "
+          + "  redis.call('pexpireat', KEYS[1], ARGV[3]); "
+          + "end "
+          + "return rs;", String.class);
+
+    /**
+     * KEYS[1] = merged, KEYS[2...] = shards, ARGV[1] = merge-cache-millis, ARGV[2] = stop
+     */
+    private static final RedisScript<List> MERGED_TOP_SCRIPT = new DefaultRedisScript<>(
+            "if(redis.call('exists', KEYS[1]) == 0) then "
+          + "  local args = {'zunionstore', KEYS[1], #KEYS - 1}; "
+          + "  for i = 2, #KEYS do args[#args + 1] = KEYS[i]; end "
+          + "  if(redis.call(unpack(args)) > 0) then "
+          + "    redis.call('pexpire', KEYS[1], ARGV[1]); "
+          + "  end "
+          + "end "
+          + "return redis.call('zrevrange', KEYS[1], 0, ARGV[2], 'WITHSCORES');", List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MergeMode mergeMode;
+    private final long mergeCacheMillis;
+
+    private final LoadingCache<Long, Shards> shards;
+
+    /**
+     * {@link MergeMode#CLIENT}的本地合并结果，key: vote.id
+     */
+    private final LoadingCache<Long, List<Tuple<Long, Long>>> merged;
+
+    public ShardedVoteCounter(StringRedisTemplate redisTemplate, MergeMode mergeMode) {
+        this(redisTemplate, mergeMode, DEFAULT_MERGE_CACHE_MILLIS, DEFAULT_SHARDS_CACHE_MILLIS);
+    }
+
+    public ShardedVoteCounter(StringRedisTemplate redisTemplate, MergeMode mergeMode, long mergeCacheMillis, long shardsCacheMillis) {
+        this.redisTemplate = redisTemplate;
+        this.mergeMode = mergeMode;
+        this.mergeCacheMillis = mergeCacheMillis;
+
+        this.shards = CacheBuilder.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(shardsCacheMillis, TimeUnit.MILLISECONDS)
+                .build(CacheLoader.from(this::loadShards));
+        this.merged = CacheBuilder.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(mergeCacheMillis, TimeUnit.MILLISECONDS)
+                .build(CacheLoader.from(this::mergeByClient));
+    }
+
+    /**
+     * 修改投票活动的分片数，可以在投票期间修改。
+     */
+    public void setShards(Long voteId, int shards) {
+        Assert.isTrue(shards > 0, "shards must be greater than 0");
+
+        redisTemplate.execute(SET_SHARDS_SCRIPT, Lists.newArrayList(K_F_HASH_VOTE_ITEM_SHARDS), voteId + "", shards + "");
+        this.shards.invalidate(voteId);
+    }
+
+    /**
+     * @return [当前分片数, 最大分片数]
+     */
+    public int[] getShards(Long voteId) {
+        Shards value = shards.getUnchecked(voteId);
+        return new int[]{ value.current, value.max };
+    }
+
+    /**
+     * 随机选择一个分片累加。
+     *
+     * @return 当前分片中的票数（不是总票数）
+     */
+    public long incr(Long voteId, Long itemId, long delta) {
+        Shards value = shards.getUnchecked(voteId);
+        int shard = ThreadLocalRandom.current().nextInt(value.current);
+        String score = redisTemplate.execute(INCR_SCRIPT, Lists.newArrayList(keyShard(voteId, shard)),
+                itemId + "", delta + "", value.expireAt + "");
+        return score == null ? 0 : Double.valueOf(score).longValue();
+    }
+
+    /**
+     * 与{@link VoteCache#adjustCountExpire}相同，创建/修改投票活动时维护失效时间。
+     * 失效时间同时保存到`vote:item:shards`，之后新创建的分片也会设置。
+     */
+    public void expireAt(Long voteId, long timestampMillis) {
+        redisTemplate.opsForHash().put(K_F_HASH_VOTE_ITEM_SHARDS, voteId + ":expire", timestampMillis + "");
+        shards.invalidate(voteId);
+
+        int max = getShards(voteId)[1];
+        pipelined(pipeline -> {
+            for (int i = 0; i < max; i++) {
+                pipeline.pexpireAt(keyShard(voteId, i), timestampMillis);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 一次pipeline读取所有分片中的score（不使用合并缓存）。
+     *
+     * @return 不存在时返回null
+     */
+    public Long getCount(Long voteId, Long itemId) {
+        int max = getShards(voteId)[1];
+        List<Response<Double>> responses = pipelined(pipeline -> {
+            List<Response<Double>> rs = Lists.newArrayListWithCapacity(max);
+            for (int i = 0; i < max; i++) {
+                rs.add(pipeline.zscore(keyShard(voteId, i), itemId + ""));
+            }
+            return rs;
+        });
+
+        Long count = null;
+        for (Response<Double> response : responses) {
+            Double score = response.get();
+            if (score != null) {
+                count = (count == null ? 0 : count) + score.longValue();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return 按票数倒序，first: item.id，second: 票数；合并结果最多缓存`mergeCacheMillis`
+     */
+    public List<Tuple<Long, Long>> getCounts(Long voteId) {
+        return top(voteId, -1);
+    }
+
+    /**
+     * @param k 小于0时返回全部，等于0时返回空
+     * @return 按票数倒序，first: item.id，second: 票数；合并结果最多缓存`mergeCacheMillis`
+     */
+    public List<Tuple<Long, Long>> top(Long voteId, int k) {
+        if (k == 0) {
+            return Collections.emptyList();
+        }
+
+        if (mergeMode == MergeMode.UNION_STORE) {
+            return mergeByUnionStore(voteId, k);
+        }
+
+        List<Tuple<Long, Long>> all = merged.getUnchecked(voteId);
+        return k < 0 || k >= all.size() ? all : all.subList(0, k);
+    }
+
+    /**
+     * 减少分片数后，把`[当前分片数, 最大分片数)`的分片合并到`[0, 当前分片数)`，并把最大分片数修改为当前分片数。
+     * 需要在{@link #setShards(Long, int)}之后至少`shardsCacheMillis`执行，否则本地缓存中仍是旧的分片数。
+     *
+     * @return 合并的分片数
+     */
+    public int compact(Long voteId) {
+        shards.invalidate(voteId);
+        long expireAt = shards.getUnchecked(voteId).expireAt;
+        int[] current = getShards(voteId);
+        if (current[0] >= current[1]) {
+            return 0;
+        }
+
+        int compacted = 0;
+        for (int i = current[0]; i < current[1]; i++) {
+            String key = keyShard(voteId, i);
+            // 与分片key在同一个slot
+            String tmp = "{" + key + "}:compact";
+            Boolean renamed = redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+                Jedis jedis = (Jedis) connection.getNativeConnection();
+                return jedis.exists(key) && "OK".equals(jedis.rename(key, tmp));
+            });
+            if (!Boolean.TRUE.equals(renamed)) {
+                continue;
+            }
+
+            Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet().rangeWithScores(tmp, 0, -1);
+            String target = keyShard(voteId, i % current[0]);
+            pipelined(pipeline -> {
+                tuples.forEach(tuple -> pipeline.zincrby(target, tuple.getScore(), tuple.getValue()));
+                if (expireAt > 0) {
+                    pipeline.pexpireAt(target, expireAt);
+                }
+                pipeline.del(tmp);
+                return null;
+            });
+            compacted++;
+        }
+
+        redisTemplate.opsForHash().put(K_F_HASH_VOTE_ITEM_SHARDS, voteId + ":max", current[0] + "");
+        shards.invalidate(voteId);
+        merged.invalidate(voteId);
+
+        log.info("[vergilyn]compact vote-item shards >>>> voteId: {}, shards: {} -> {}", voteId, current[1], current[0]);
+        return compacted;
+    }
+
+    private List<Tuple<Long, Long>> mergeByClient(Long voteId) {
+        int max = getShards(voteId)[1];
+        List<Response<Set<redis.clients.jedis.Tuple>>> responses = pipelined(pipeline -> {
+            List<Response<Set<redis.clients.jedis.Tuple>>> rs = Lists.newArrayListWithCapacity(max);
+            for (int i = 0; i < max; i++) {
+                rs.add(pipeline.zrangeWithScores(keyShard(voteId, i), 0, -1));
+            }
+            return rs;
+        });
+
+        Map<Long, Long> counts = Maps.newHashMap();
+        for (Response<Set<redis.clients.jedis.Tuple>> response : responses) {
+            for (redis.clients.jedis.Tuple tuple : response.get()) {
+                counts.merge(Long.valueOf(tuple.getElement()), (long) tuple.getScore(), Long::sum);
+            }
+        }
+
+        return Collections.unmodifiableList(counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .map(entry -> Tuple.of(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Tuple<Long, Long>> mergeByUnionStore(Long voteId, int k) {
+        int max = getShards(voteId)[1];
+        List<String> keys = Lists.newArrayListWithCapacity(max + 1);
+        keys.add(String.format(K_T_ZSET_VOTE_ITEM_MERGED, voteId));
+        for (int i = 0; i < max; i++) {
+            keys.add(keyShard(voteId, i));
+        }
+
+        List<String> result = (List<String>) redisTemplate.execute(MERGED_TOP_SCRIPT, keys, mergeCacheMillis + "", (k < 0 ? -1 : k - 1) + "");
+        if (result == null || result.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Tuple<Long, Long>> top = Lists.newArrayListWithCapacity(result.size() / 2);
+        for (int i = 0, len = result.size(); i < len; i += 2) {
+            top.add(Tuple.of(Long.valueOf(result.get(i)), Double.valueOf(result.get(i + 1)).longValue()));
+        }
+        return top;
+    }
+
+    private Shards loadShards(Long voteId) {
+        List<Object> values = redisTemplate.opsForHash().multiGet(K_F_HASH_VOTE_ITEM_SHARDS,
+                Lists.newArrayList(voteId + "", voteId + ":max", voteId + ":expire"));
+
+        Shards rs = new Shards();
+        rs.current = parseShards(values.get(0));
+        rs.max = Math.max(rs.current, parseShards(values.get(1)));
+        Long expireAt = values.get(2) == null ? null : Longs.tryParse(values.get(2).toString());
+        rs.expireAt = expireAt == null ? 0 : expireAt;
+        return rs;
+    }
+
+    private static int parseShards(Object value) {
+        Integer shards = value == null ? null : Ints.tryParse(value.toString());
+        return shards == null || shards <= 0 ? DEFAULT_SHARDS : shards;
+    }
+
+    private String keyShard(Long voteId, int shard) {
+        Assert.notNull(voteId);
+        return String.format(K_T_ZSET_VOTE_ITEM_SHARD, voteId, shard);
+    }
+
+    private <T> T pipelined(Function<Pipeline, T> function) {
+        return redisTemplate.execute((RedisCallback<T>) connection -> {
+            Pipeline pipeline = ((Jedis) connection.getNativeConnection()).pipelined();
+            T result = function.apply(pipeline);
+            pipeline.sync();
+            return result;
+        });
+    }
+
+    private static class Shards {
+        private int current;
+        private int max;
+
+        /**
+         * 0: 未设置
+         */
+        private long expireAt;
+    }
+
+    public enum MergeMode {
+        /**
+         * `ZUNIONSTORE`到`vote:item:{vote.id}:merged`（redis中缓存），要求所有分片在同一个slot。
+         */
+        UNION_STORE,
+
+        /**
+         * pipeline读取所有分片，本地合并并缓存。
+         */
+        CLIENT
+    }
+}
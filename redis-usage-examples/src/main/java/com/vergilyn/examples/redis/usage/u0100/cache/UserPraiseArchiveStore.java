@@ -0,0 +1,30 @@
+package com.vergilyn.examples.redis.usage.u0100.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 归档（{@link UserPraiseArchiver}）的用户点赞行为，需要持久化（例如 {@link H2UserPraiseArchiveStore}）。
+ * 所有实例需要访问同一个store。
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+public interface UserPraiseArchiveStore {
+
+    /**
+     * 覆盖用户之前归档的点赞行为。
+     *
+     * @param praises key: {businessType}_{businessId}, value: 与{@link UserPraiseCache#K_T_HASH_USER_PRAISE}相同
+     */
+    void save(Long userId, Map<String, Long> praises);
+
+    /**
+     * @return 没有归档的用户 或 没有点赞行为的用户 不包含在返回值中
+     */
+    Map<Long, Map<String, Long>> load(Collection<Long> userIds);
+
+    void delete(Collection<Long> userIds);
+
+    void deleteAll();
+}
@@ -0,0 +1,111 @@
+package com.vergilyn.examples.redis.usage.u0100.cache;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.vergilyn.examples.commons.domain.Tuple;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+/**
+ * 用户点赞行为分层存储：超过`idleMillis`未访问的用户，归档到{@link UserPraiseArchiveStore}，redis只保留活跃的用户。
+ * <p>
+ * 1. 最后访问时间：{@link UserPraiseCache#K_F_ZSET_USER_PRAISE_ACCESS}，点赞/取消时更新，查询时最多每`touchInterval`更新一次
+ *   （{@link UserPraiseCache#setTouchInterval(long)}）；与`OBJECT IDLETIME`相比，不受`SCAN`、归档本身的读取影响；
+ *   开启归档前已存在的用户，由{@link #start(long)}通过`OBJECT IDLETIME`初始化。 <br/>
+ * 2. 归档：保存到store -> 最后访问时间未改变时，标记为已归档（{@link UserPraiseCache#K_F_SET_USER_PRAISE_ARCHIVED}）并删除redis中的点赞行为；
+ *   归档期间被访问的用户放弃本次归档。 <br/>
+ * 3. 恢复：{@link UserPraiseCache}读取/写入已归档的用户时，批量从store恢复（`HSETNX`）后再读取/写入。
+ * </p>
+ * 备注：所有实例的{@link UserPraiseCache}都需要`setArchiveStore(...)`，但只需要一个实例执行归档。
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+// @Component
+@Slf4j
+public class UserPraiseArchiver implements AutoCloseable {
+    public static final long DEFAULT_IDLE_MILLIS = TimeUnit.DAYS.toMillis(30);
+    public static final int DEFAULT_BATCH_SIZE = 200;
+
+    private final UserPraiseCache userPraiseCache;
+    private final long idleMillis;
+    private final int batchSize;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("user-praise-archiver-%d").setDaemon(true).build());
+
+    public UserPraiseArchiver(UserPraiseCache userPraiseCache, UserPraiseArchiveStore archiveStore) {
+        this(userPraiseCache, archiveStore, DEFAULT_IDLE_MILLIS, DEFAULT_BATCH_SIZE);
+    }
+
+    public UserPraiseArchiver(UserPraiseCache userPraiseCache, UserPraiseArchiveStore archiveStore, long idleMillis, int batchSize) {
+        Assert.isTrue(idleMillis > 0, "idleMillis must be greater than 0");
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+
+        this.userPraiseCache = userPraiseCache;
+        this.idleMillis = idleMillis;
+        this.batchSize = batchSize;
+
+        userPraiseCache.setArchiveStore(archiveStore);
+    }
+
+    public UserPraiseArchiver start(long periodMillis) {
+        scheduler.execute(() -> {
+            try {
+                log.info("[vergilyn]seed user-praise access >>>> {}", userPraiseCache.seedAccess());
+            } catch (Exception e) {
+                log.error("[vergilyn]seed user-praise access error >>>> {}", e.getMessage(), e);
+            }
+        });
+
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                long archived = archiveOnce();
+                if (archived > 0) {
+                    log.info("[vergilyn]archive user-praise >>>> {}", archived);
+                }
+            } catch (Exception e) {
+                log.error("[vergilyn]archive user-praise error >>>> {}", e.getMessage(), e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * @return 归档的用户数
+     */
+    public synchronized long archiveOnce() {
+        long before = System.currentTimeMillis() - idleMillis;
+
+        long archived = 0;
+        while (true) {
+            List<Tuple<Long, Double>> users = userPraiseCache.rangeIdle(before, batchSize);
+
+            // 归档成功 或 被访问的用户 都会从范围中移除，所以每次都从头读取
+            int processed = 0;
+            for (Tuple<Long, Double> user : users) {
+                if (userPraiseCache.archive(user.getFirst(), user.getSecond())) {
+                    archived++;
+                    processed++;
+                }
+            }
+
+            if (users.size() < batchSize || processed == 0) {
+                return archived;
+            }
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,168 @@
+package com.vergilyn.examples.redis.usage.u0100.cache;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Resource;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.Assert;
+
+/**
+ * 用户点赞行为（bitmap），适用于`businessId`是连续整数的业务类型。
+ * <p>
+ * {@link UserPraiseCache}每个点赞保存一个`current-time-millis`（hash的一个field，hashtable编码时大约60~80 bytes），
+ * 但大部分场景只需要判断 是否点赞。这里每个点赞只占用 1 bit（offset = businessId % {@link #RANGE_BITS}）。
+ * 例如 用户点赞了10000个文章（id分布在[0, 1,000,000)）：hash大约 700KB，bitmap最多 16 * 8KB = 128KB（id越集中越小）。
+ * </p>
+ * 备注：
+ * <ol>
+ * <li>按range拆分bitmap，避免`businessId`较大时一次`SETBIT`分配很大的string（每个bitmap最大 {@link #RANGE_BITS} / 8 = 8KB）；</li>
+ * <li>不保存点赞时间。需要时通过{@link #setTimestampOperations(HashOperations)}单独保存到 冷存储（例如 另外一个redis实例），
+ *   只在{@link #getPraiseTime(Long, Byte, Long)}时读取；</li>
+ * <li>只支持 点赞/未点赞，不支持{@link UserPraiseCache}中的 负数:点踩。</li>
+ * </ol>
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+// @Component
+public class UserPraiseBitmapCache {
+    public static final int RANGE_BITS = 1 << 16;
+
+    /**
+     * desc: 用户点赞行为 <br/>
+     * type: STRING(bitmap) <br/>
+     * key: user:praise-bitmap:{userId}:{businessType}:{range}，range = businessId / {@link #RANGE_BITS} <br/>
+     * offset: businessId % {@link #RANGE_BITS}，1:点赞, 0:未操作 <br/>
+     * expired: 长期有效 <br/>
+     */
+    public static final String K_T_BITMAP_USER_PRAISE = "user:praise-bitmap:%s:%d:%d";
+
+    /**
+     * desc: 用户点赞时间（冷存储，可选） <br/>
+     * type: HASH <br/>
+     * key: user:praise-time:{userId} <br/>
+     * field: {businessType}_{businessId} <br/>
+     * value: {current-time-millis} <br/>
+     * expired: 长期有效 <br/>
+     */
+    public static final String K_T_HASH_USER_PRAISE_TIME = "user:praise-time:%s";
+
+    private static final BitFieldSubCommands.BitFieldType U1 = BitFieldSubCommands.BitFieldType.unsigned(1);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 为null时 不保存点赞时间
+     */
+    private HashOperations<String, String, Long> timestampOperations;
+
+    public void setTimestampOperations(HashOperations<String, String, Long> timestampOperations) {
+        this.timestampOperations = timestampOperations;
+    }
+
+    public boolean isPraised(Long userId, Byte businessType, Long businessId){
+        Boolean bit = stringRedisTemplate.opsForValue().getBit(keyPraise(userId, businessType, businessId), offsetPraise(businessId));
+        return Boolean.TRUE.equals(bit);
+    }
+
+    /**
+     * 按bitmap分组，一次pipeline（每个bitmap一次`BITFIELD key GET u1 #offset [GET u1 #offset ...]`）。
+     *
+     * @param fields {businessType}_{businessId}，参考{@link #fieldPraise(Byte, Long)}
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Boolean> isPraised(Long userId, List<String> fields){
+        Map<String, List<String>> grouped = Maps.newLinkedHashMap();
+        Map<String, Long> offsets = Maps.newHashMapWithExpectedSize(fields.size());
+        for (String field : fields) {
+            int index = field.indexOf(CacheConstants.SEPARATOR_CHAR);
+            Assert.isTrue(index > 0, "invalid praise field: " + field);
+
+            Byte businessType = Byte.valueOf(field.substring(0, index));
+            Long businessId = Long.valueOf(field.substring(index + 1));
+
+            grouped.computeIfAbsent(keyPraise(userId, businessType, businessId), k -> Lists.newArrayList()).add(field);
+            offsets.put(field, offsetPraise(businessId));
+        }
+
+        RedisSerializer<String> keySerializer = stringRedisTemplate.getStringSerializer();
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            grouped.forEach((key, keyFields) -> {
+                BitFieldSubCommands commands = BitFieldSubCommands.create();
+                for (String field : keyFields) {
+                    commands = commands.get(U1).valueAt(offsets.get(field));
+                }
+                connection.bitField(keySerializer.serialize(key), commands);
+            });
+            return null;
+        });
+
+        Map<String, Boolean> rs = Maps.newHashMapWithExpectedSize(fields.size());
+        int index = 0;
+        for (List<String> keyFields : grouped.values()) {
+            List<Long> bits = (List<Long>) results.get(index++);
+            for (int i = 0, len = keyFields.size(); i < len; i++) {
+                rs.put(keyFields.get(i), bits != null && Long.valueOf(1L).equals(bits.get(i)));
+            }
+        }
+
+        return rs;
+    }
+
+    public boolean doPraise(Long userId, Byte businessType, Long businessId){
+        stringRedisTemplate.opsForValue().setBit(keyPraise(userId, businessType, businessId), offsetPraise(businessId), true);
+
+        if (timestampOperations != null) {
+            timestampOperations.put(keyPraiseTime(userId), fieldPraise(businessType, businessId), System.currentTimeMillis());
+        }
+        return true;
+    }
+
+    public boolean undoPraise(Long userId, Byte businessType, Long businessId){
+        stringRedisTemplate.opsForValue().setBit(keyPraise(userId, businessType, businessId), offsetPraise(businessId), false);
+
+        if (timestampOperations != null) {
+            timestampOperations.delete(keyPraiseTime(userId), fieldPraise(businessType, businessId));
+        }
+        return true;
+    }
+
+    /**
+     * @return 未保存点赞时间 或 未点赞时返回null
+     */
+    public Long getPraiseTime(Long userId, Byte businessType, Long businessId){
+        if (timestampOperations == null) {
+            return null;
+        }
+
+        return timestampOperations.get(keyPraiseTime(userId), fieldPraise(businessType, businessId));
+    }
+
+    public String keyPraise(Long userId, Byte businessType, Long businessId){
+        Assert.isTrue(businessId != null && businessId >= 0, "businessId must not be negative");
+
+        return String.format(K_T_BITMAP_USER_PRAISE, userId, businessType, businessId / RANGE_BITS);
+    }
+
+    public long offsetPraise(Long businessId){
+        return businessId % RANGE_BITS;
+    }
+
+    public String keyPraiseTime(Long userId){
+        return String.format(K_T_HASH_USER_PRAISE_TIME, userId);
+    }
+
+    public String fieldPraise(Byte businessType, Long businessId){
+        return businessType + CacheConstants.SEPARATOR_CHAR + businessId;
+    }
+}
@@ -1,19 +1,56 @@
 package com.vergilyn.examples.redis.usage.u0100.cache;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.vergilyn.examples.commons.domain.Tuple;
+import com.vergilyn.examples.commons.redis.BigKeyDeleter;
+import com.vergilyn.examples.commons.serializer.RedisSerializerFactory;
 
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.Assert;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.params.ZAddParams;
+import redis.clients.jedis.util.SafeEncoder;
 
 /**
  * FIXME 2020-06-01 缓存为永久缓存，注意清理
+ * <p>vergilyn-comment, 2026-10-19 >>>> 长期未访问的用户可以归档到其它存储，参考{@link UserPraiseArchiver}</p>
  * @date 2020-06-01
  */
 // @Component
+@Slf4j
 public class UserPraiseCache {
     private static final Long ZERO_LONG = 0L;
 
@@ -27,22 +64,285 @@ public class UserPraiseCache {
      */
     public static final String K_T_HASH_USER_PRAISE = "user:praise:%s";
 
+    /**
+     * desc: 用户点赞行为（分桶，`buckets > 1`） <br/>
+     * type: HASH <br/>
+     * key: user:praise:{userId}:{bucket}，bucket = hash(field) % buckets <br/>
+     * field、value、expired: 与{@link #K_T_HASH_USER_PRAISE}相同 <br/>
+     * <p>
+     * 每个桶的field个数需要小于`hash-max-ziplist-entries`（redis 7.x: `hash-max-listpack-entries`），
+     * 保持ziplist/listpack编码（否则转换为hashtable，每个field的内存大约增加4倍），参考{@link #bucketsFor(int, int)}。
+     * </p>
+     */
+    public static final String K_T_HASH_USER_PRAISE_BUCKET = "user:praise:%s:%d";
+
+    /**
+     * 默认`hash-max-ziplist-entries = 128`。{@link #bucketsFor(int, int)}按平均值计算分桶数，
+     * 每个桶的field个数并不均匀，所以预留一半，避免部分桶超过128后转换为hashtable。
+     */
+    public static final int DEFAULT_MAX_ENTRIES_PER_BUCKET = 64;
+
+    /**
+     * `HSCAN`的count、`HDEL`每次的field个数
+     */
+    private static final int HASH_CHUNK_SIZE = 500;
+
+    /**
+     * 同一个用户，每个实例最多每10分钟更新一次最后访问时间（读取时），需要远小于{@link UserPraiseArchiver}的`idleMillis`。
+     */
+    public static final long DEFAULT_TOUCH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * desc: 业务的点赞数（与用户点赞行为在同一个lua中修改） <br/>
+     * type: HASH <br/>
+     * key: business:praise:count:{businessType}:{businessId / PRAISE_COUNT_SHARD_SIZE} <br/>
+     * field: {businessId} <br/>
+     * value: 点赞数 <br/>
+     * expired: 长期有效 <br/>
+     * <p>
+     * 按业务id分片，避免同一个业务类型的所有业务在一个hash中（bigkey，并且redis-cluster中集中在一个slot）。
+     * </p>
+     */
+    public static final String K_T_HASH_BUSINESS_PRAISE_COUNT = "business:praise:count:%d:%d";
+
+    /**
+     * 每个分片的业务个数，小于默认的`hash-max-ziplist-entries = 128`（保持ziplist编码）
+     */
+    public static final int PRAISE_COUNT_SHARD_SIZE = 100;
+
+    /**
+     * desc: 点赞数已修改、未同步到DB的业务（write-behind，参考{@link UserPraiseCountFlusher}） <br/>
+     * type: SET <br/>
+     * key: business:praise:count:dirty <br/>
+     * member: {businessType}_{businessId} <br/>
+     * expired: 长期有效 <br/>
+     */
+    public static final String K_F_SET_BUSINESS_PRAISE_COUNT_DIRTY = "business:praise:count:dirty";
+
+    /**
+     * desc: 从dirty中取出、正在同步到DB的业务（同步成功后移除，进程崩溃时由{@link #recoverDirtyPraiseCounts()}放回dirty） <br/>
+     * type: SET <br/>
+     * key: business:praise:count:processing <br/>
+     * member: {businessType}_{businessId} <br/>
+     * expired: 长期有效 <br/>
+     */
+    public static final String K_F_SET_BUSINESS_PRAISE_COUNT_PROCESSING = "business:praise:count:processing";
+
+    /**
+     * desc: 用户点赞行为的最后访问时间（开启归档时，参考{@link UserPraiseArchiver}） <br/>
+     * type: ZSET <br/>
+     * key: user:praise:access <br/>
+     * member: {userId} <br/>
+     * score: 最后访问时间（current-time-millis） <br/>
+     * expired: 长期有效 <br/>
+     */
+    public static final String K_F_ZSET_USER_PRAISE_ACCESS = "user:praise:access";
+
+    /**
+     * desc: 点赞行为已归档到{@link UserPraiseArchiveStore}的用户 <br/>
+     * type: SET <br/>
+     * key: user:praise:archived <br/>
+     * member: {userId} <br/>
+     * expired: 长期有效 <br/>
+     */
+    public static final String K_F_SET_USER_PRAISE_ARCHIVED = "user:praise:archived";
+
+    /**
+     * desc: 归档时`RENAME`的用户点赞行为，随后由{@link BigKeyDeleter}删除 <br/>
+     * type: HASH <br/>
+     * key: user:praise:archiving:{userId}:{index} <br/>
+     */
+    public static final String K_T_HASH_USER_PRAISE_ARCHIVING = "user:praise:archiving:%s:%d";
+
+    /**
+     * 用户的点赞行为已归档，需要先恢复
+     */
+    private static final long ARCHIVED = -2;
+
+    /**
+     * 点赞状态改变时才修改点赞数，重复点赞/取消不会重复计数。
+     * 由hashValueSerializer序列化，所以比较序列化后的值（而不是`tonumber`）。
+     * <pre>
+     * KEYS[1] = 用户点赞行为（当前分桶）, KEYS[2] = 点赞数, KEYS[3] = dirty, KEYS[4] = access, KEYS[5] = archived,
+     *   [KEYS[6] = 用户点赞行为（迁移中的旧分桶）]
+     * ARGV[1] = field, ARGV[2] = value, ARGV[3] = serialized(0), ARGV[4] = businessId, ARGV[5] = userId,
+     *   ARGV[6] = current-time-millis（0: 未开启归档）
+     * </pre>
+     * 备注：redis-cluster中KEYS不在同一个slot，需要`{...}`hash-tag或者拆分为两次调用。
+     */
+    private static final RedisScript<Long> PRAISE_SCRIPT = new DefaultRedisScript<>(
+            "if(ARGV[6] ~= '0') then "
+          + "  if(redis.call('sismember', KEYS[5], ARGV[5]) == 1) then "
+          + "    return -2; "
+          + "  end "
+          + "  redis.call('zadd', KEYS[4], ARGV[6], ARGV[5]); "
+          + "end "
+          + "local old = redis.call('hget', KEYS[1], ARGV[1]); "
+          + "if((not old) and KEYS[6]) then "
+          + "  old = redis.call('hget', KEYS[6], ARGV[1]); "
+          + "end "
+          + "local was, now = (old and old ~= ARGV[3]) and 1 or 0, (ARGV[2] ~= ARGV[3]) and 1 or 0; "
+          + "redis.call('hset', KEYS[1], ARGV[1], ARGV[2]); "
+          + "if(was == now) then "
+          + "  return 0; "
+          + "end "
+          + "redis.call('hincrby', KEYS[2], ARGV[4], now - was); "
+          + "redis.call('sadd', KEYS[3], ARGV[1]); "
+          + "return now - was;", Long.class);
+
+    /**
+     * `SPOP` dirty，并且`SADD`到processing。
+     * KEYS[1] = dirty, KEYS[2] = processing, ARGV[1] = count
+     */
+    private static final RedisScript<List> POP_DIRTY_SCRIPT = new DefaultRedisScript<>(
+            "local rs = redis.call('spop', KEYS[1], ARGV[1]); "
+          + "if(#rs > 0) then "
+          + "  redis.call('sadd', KEYS[2], unpack(rs)); "
+          + "end "
+          + "return rs;", List.class);
+
+    /**
+     * processing全部放回dirty。
+     * KEYS[1] = dirty, KEYS[2] = processing
+     */
+    private static final RedisScript<Long> RECOVER_DIRTY_SCRIPT = new DefaultRedisScript<>(
+            "if(redis.call('exists', KEYS[2]) == 0) then "
+          + "  return 0; "
+          + "end "
+          + "local rs = redis.call('scard', KEYS[2]); "
+          + "redis.call('sunionstore', KEYS[1], KEYS[1], KEYS[2]); "
+          + "redis.call('del', KEYS[2]); "
+          + "return rs;", Long.class);
+
+    /**
+     * 读取时更新最后访问时间（已归档的用户不更新）。
+     * KEYS[1] = access, KEYS[2] = archived, ARGV[1] = current-time-millis, ARGV[2...] = userId
+     *
+     * @return 已归档的userId
+     */
+    private static final RedisScript<List> TOUCH_SCRIPT = new DefaultRedisScript<>(
+            "local rs = {}; "
+          + "for i = 2, #ARGV do "
+          + "  if(redis.call('sismember', KEYS[2], ARGV[i]) == 1) then "
+          + "    rs[#rs + 1] = ARGV[i]; "
+          + "  else "
+          + "    redis.call('zadd', KEYS[1], ARGV[1], ARGV[i]); "
+          + "  end "
+          + "end "
+          + "return rs;", List.class);
+
+    /**
+     * 仅当最后访问时间未改变（读取、归档期间没有访问）时，标记为已归档，并`RENAME`用户点赞行为。
+     * KEYS[1] = access, KEYS[2] = archived, KEYS[3...] = [key, archiving-key, key, archiving-key, ...],
+     * ARGV[1] = userId, ARGV[2] = 最后访问时间
+     */
+    private static final RedisScript<Long> ARCHIVE_SCRIPT = new DefaultRedisScript<>(
+            "local score = redis.call('zscore', KEYS[1], ARGV[1]); "
+          + "if((not score) or tonumber(score) ~= tonumber(ARGV[2])) then "
+          + "  return 0; "
+          + "end "
+          + "redis.call('sadd', KEYS[2], ARGV[1]); "
+          + "redis.call('zrem', KEYS[1], ARGV[1]); "
+          + "for i = 3, #KEYS, 2 do "
+          + "  if(redis.call('exists', KEYS[i]) == 1) then "
+          + "    redis.call('rename', KEYS[i], KEYS[i + 1]); "
+          + "  end "
+          + "end "
+          + "return 1;", Long.class);
+
     @Resource
     private HashOperations<String, String, Long> hashOperations;
 
+    @Resource
+    private BigKeyDeleter bigKeyDeleter;
+
+    /**
+     * 当前的分桶数，1: 不分桶（即{@link #K_T_HASH_USER_PRAISE}）
+     */
+    private volatile int buckets = 1;
+
+    /**
+     * 迁移中（{@link #rebucketAll()}）的旧分桶数，0: 没有迁移。
+     * 迁移期间：写入新的分桶，读取时新的分桶中不存在再读取旧的分桶。
+     */
+    private volatile int previousBuckets = 0;
+
+    /**
+     * 为null时 不开启归档
+     */
+    private UserPraiseArchiveStore archiveStore;
+
+    /**
+     * 最近已更新最后访问时间的用户（key: userId），避免每次读取都`ZADD`全局的{@link #K_F_ZSET_USER_PRAISE_ACCESS}
+     */
+    private volatile Cache<Long, Boolean> touched = touchedCache(DEFAULT_TOUCH_INTERVAL_MILLIS);
+
+    private final ExecutorService migrator = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("user-praise-rebucket-%d").setDaemon(true).build());
+
+    /**
+     * 所有实例的配置需要一致。修改分桶数：`setLayout(新的分桶数, 旧的分桶数)` -> {@link #rebucketAll()} -> `setLayout(新的分桶数, 0)`
+     */
+    public void setLayout(int buckets, int previousBuckets) {
+        Assert.isTrue(buckets > 0, "buckets must be greater than 0");
+        Assert.isTrue(previousBuckets >= 0, "previousBuckets must not be negative");
+
+        this.buckets = buckets;
+        this.previousBuckets = previousBuckets == buckets ? 0 : previousBuckets;
+    }
+
+    /**
+     * 开启归档后：写入时更新用户的最后访问时间，读取/写入已归档的用户时先恢复。
+     * 参考{@link UserPraiseArchiver}
+     */
+    public void setArchiveStore(UserPraiseArchiveStore archiveStore) {
+        this.archiveStore = archiveStore;
+    }
+
+    /**
+     * 读取时更新最后访问时间的最小间隔（写入时总是更新），参考{@link #DEFAULT_TOUCH_INTERVAL_MILLIS}
+     */
+    public void setTouchInterval(long touchIntervalMillis) {
+        Assert.isTrue(touchIntervalMillis > 0, "touchIntervalMillis must be greater than 0");
+
+        this.touched = touchedCache(touchIntervalMillis);
+    }
+
     public boolean isPraised(Long userId, Byte businessType, Long businessId){
-        Long value = hashOperations.get(keyPraise(userId), fieldPraise(businessType, businessId));
+        restore(Collections.singleton(userId));
+
+        String field = fieldPraise(businessType, businessId);
+
+        Long value = hashOperations.get(keyPraise(userId, field, buckets), field);
+        if (value == null && previousBuckets > 0) {
+            value = hashOperations.get(keyPraise(userId, field, previousBuckets), field);
+        }
         return isPraised(value);
     }
 
+    /**
+     * 按分桶分组，一次pipeline（每个分桶一次HMGET）。
+     */
     public Map<String, Boolean> isPraised(Long userId, List<String> fields){
-        List<Long> values = hashOperations.multiGet(keyPraise(userId), fields);
+        restore(Collections.singleton(userId));
+
+        Map<String, Long> values = multiGet(userId, fields, buckets);
+        if (previousBuckets > 0) {
+            List<String> missing = Lists.newArrayList();
+            fields.forEach(field -> {
+                if (values.get(field) == null) {
+                    missing.add(field);
+                }
+            });
+
+            if (!missing.isEmpty()) {
+                values.putAll(multiGet(userId, missing, previousBuckets));
+            }
+        }
 
         Map<String, Boolean> rs = Maps.newHashMap();
-        Long value;
-        for (int i = 0, len = fields.size(); i < len; i++){
-            value = values.get(i);
-            rs.put(fields.get(i), isPraised(value));
+        for (String field : fields){
+            rs.put(field, isPraised(values.get(field)));
         }
 
         return rs;
@@ -53,26 +353,419 @@ public class UserPraiseCache {
     }
 
     /**
-     * TODO 2020-06-01 注意field个数最好不要超过 5000
+     * 多个用户的点赞行为（例如 渲染feed、"好友点赞"），按key分组，一次pipeline（每个key一次HMGET）。
+     * 不反序列化value（与序列化后的0比较），不创建`Map<String, Boolean>`。
+     *
+     * @return 第i位 = `praiseKeys.get(i)`是否点赞
+     */
+    public BitSet isPraised(List<PraiseKey> praiseKeys){
+        BitSet praised = new BitSet(praiseKeys.size());
+        if (praiseKeys.isEmpty()) {
+            return praised;
+        }
+
+        String[] fields = new String[praiseKeys.size()];
+        for (int i = 0, len = praiseKeys.size(); i < len; i++) {
+            PraiseKey praiseKey = praiseKeys.get(i);
+            fields[i] = fieldPraise(praiseKey.getBusinessType(), praiseKey.getBusinessId());
+        }
+
+        Set<Long> userIds = Sets.newHashSet();
+        praiseKeys.forEach(praiseKey -> userIds.add(praiseKey.getUserId()));
+        restore(userIds);
+
+        BitSet missing = new BitSet(praiseKeys.size());
+        missing.set(0, praiseKeys.size());
+
+        multiGet(praiseKeys, fields, buckets, missing, praised);
+        if (previousBuckets > 0 && !missing.isEmpty()) {
+            multiGet(praiseKeys, fields, previousBuckets, missing, praised);
+        }
+
+        return praised;
+    }
+
+    /**
+     * TODO 2020-06-01 注意field个数最好不要超过 5000（或者使用分桶，{@link #setLayout(int, int)}）
      * @param userId
      * @param businessType
      * @param businessId
      * @return
      */
     public boolean doPraise(Long userId, Byte businessType, Long businessId){
-        hashOperations.put(keyPraise(userId), fieldPraise(businessType, businessId), valuePraise());
+        praise(userId, businessType, businessId, valuePraise());
         return true;
     }
 
     public boolean undoPraise(Long userId, Byte businessType, Long businessId){
-        hashOperations.put(keyPraise(userId), fieldPraise(businessType, businessId), ZERO_LONG);
+        praise(userId, businessType, businessId, ZERO_LONG);
         return true;
     }
 
+    /**
+     * @return 点赞数，不存在时为0
+     */
+    public long getPraiseCount(Byte businessType, Long businessId){
+        return getPraiseCounts(businessType, Lists.newArrayList(businessId)).get(businessId);
+    }
+
+    /**
+     * 一页业务的点赞数（一次pipeline，每个分片一次`HMGET`）。
+     *
+     * @return 不存在时为0
+     */
+    public Map<Long, Long> getPraiseCounts(Byte businessType, List<Long> businessIds){
+        Map<Long, Long> rs = Maps.newHashMapWithExpectedSize(businessIds.size());
+        if (businessIds.isEmpty()) {
+            return rs;
+        }
+
+        List<String> fields = Lists.newArrayListWithCapacity(businessIds.size());
+        businessIds.forEach(businessId -> fields.add(fieldPraise(businessType, businessId)));
+
+        Map<String, Long> counts = getPraiseCounts(fields);
+        for (int i = 0, len = businessIds.size(); i < len; i++) {
+            rs.put(businessIds.get(i), counts.get(fields.get(i)));
+        }
+        return rs;
+    }
+
+    /**
+     * 多个业务的点赞数（一次pipeline，每个分片一次`HMGET`）。
+     *
+     * @param fields {businessType}_{businessId}，参考{@link #fieldPraise(Byte, Long)}
+     * @return 不存在时为0
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Long> getPraiseCounts(Collection<String> fields){
+        // key: 分片, value: [field, businessId]
+        Map<String, List<String[]>> grouped = Maps.newLinkedHashMap();
+        for (String field : fields) {
+            int index = field.indexOf(CacheConstants.SEPARATOR_CHAR);
+            Assert.isTrue(index > 0, "invalid praise field: " + field);
+
+            String businessId = field.substring(index + 1);
+            grouped.computeIfAbsent(keyPraiseCount(Byte.valueOf(field.substring(0, index)), Long.valueOf(businessId)),
+                    k -> Lists.newArrayList()).add(new String[]{ field, businessId });
+        }
+
+        List<Object> results = hashOperations.getOperations().executePipelined((RedisCallback<Object>) connection -> {
+            grouped.forEach((key, shardFields) -> connection.hMGet(SafeEncoder.encode(key),
+                    shardFields.stream().map(field -> SafeEncoder.encode(field[1])).toArray(byte[][]::new)));
+            return null;
+        }, null);
+
+        Map<String, Long> rs = Maps.newHashMapWithExpectedSize(fields.size());
+        int index = 0;
+        for (List<String[]> shardFields : grouped.values()) {
+            List<byte[]> values = (List<byte[]>) results.get(index++);
+            for (int i = 0, len = shardFields.size(); i < len; i++) {
+                rs.put(shardFields.get(i)[0], parseCount(values.get(i)));
+            }
+        }
+        return rs;
+    }
+
+    /**
+     * 取出最多`count`个点赞数已修改的业务：从dirty移动到processing（同步到DB后{@link #ackDirtyPraiseCounts(Collection)}）。
+     *
+     * @return {businessType}_{businessId}
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> popDirtyPraiseCounts(int count){
+        List<String> rs = hashOperations.getOperations().execute(POP_DIRTY_SCRIPT, RedisSerializerFactory.scriptArgs(),
+                (RedisSerializer) RedisSerializer.string(),
+                Lists.newArrayList(K_F_SET_BUSINESS_PRAISE_COUNT_DIRTY, K_F_SET_BUSINESS_PRAISE_COUNT_PROCESSING), count);
+        return rs == null ? Lists.newArrayList() : rs;
+    }
+
+    /**
+     * 同步到DB成功后，从processing移除。
+     */
+    public void ackDirtyPraiseCounts(Collection<String> fields){
+        if (fields.isEmpty()) {
+            return;
+        }
+
+        byte[] key = SafeEncoder.encode(K_F_SET_BUSINESS_PRAISE_COUNT_PROCESSING);
+        hashOperations.getOperations().execute((RedisCallback<Long>) connection ->
+                connection.sRem(key, fields.stream().map(SafeEncoder::encode).toArray(byte[][]::new)));
+    }
+
+    /**
+     * 同步到DB失败时，重新标记（先放回dirty，再从processing移除）。
+     */
+    public void markDirtyPraiseCounts(Collection<String> fields){
+        if (fields.isEmpty()) {
+            return;
+        }
+
+        byte[][] members = fields.stream().map(SafeEncoder::encode).toArray(byte[][]::new);
+        hashOperations.getOperations().execute((RedisCallback<Long>) connection -> {
+            connection.sAdd(SafeEncoder.encode(K_F_SET_BUSINESS_PRAISE_COUNT_DIRTY), members);
+            return connection.sRem(SafeEncoder.encode(K_F_SET_BUSINESS_PRAISE_COUNT_PROCESSING), members);
+        });
+    }
+
+    /**
+     * 进程崩溃时未同步完成的业务（processing）全部放回dirty。
+     * 只能在没有其它实例正在同步时调用（例如 启动时），否则正在同步的业务会被重复同步。
+     *
+     * @return 放回dirty的业务个数
+     */
+    public long recoverDirtyPraiseCounts(){
+        Long rs = hashOperations.getOperations().execute(RECOVER_DIRTY_SCRIPT, RedisSerializerFactory.scriptArgs(),
+                (RedisSerializer) RedisSerializer.string(),
+                Lists.newArrayList(K_F_SET_BUSINESS_PRAISE_COUNT_DIRTY, K_F_SET_BUSINESS_PRAISE_COUNT_PROCESSING));
+        return rs == null ? 0 : rs;
+    }
+
+    /**
+     * field个数没有上限，`DEL`可能阻塞redis
+     */
+    public boolean delete(Long userId){
+        if (archiveStore != null) {
+            archiveStore.delete(Collections.singleton(userId));
+            hashOperations.getOperations().execute((RedisCallback<Object>) connection -> {
+                byte[] member = SafeEncoder.encode(userId.toString());
+                connection.sRem(SafeEncoder.encode(K_F_SET_USER_PRAISE_ARCHIVED), member);
+                connection.zRem(SafeEncoder.encode(K_F_ZSET_USER_PRAISE_ACCESS), member);
+                return null;
+            });
+        }
+
+        boolean deleted = false;
+        for (String key : keysPraise(userId)) {
+            deleted |= bigKeyDeleter.delete(key);
+        }
+        return deleted;
+    }
+
+    /**
+     * 清理所有用户的点赞行为（限速，会阻塞当前线程）
+     * @return 删除的key数量
+     */
+    public long purgeAll(){
+        if (archiveStore != null) {
+            archiveStore.deleteAll();
+        }
+
+        // 同时匹配 分桶的key、access、archived
+        return bigKeyDeleter.purge(String.format(K_T_HASH_USER_PRAISE, "*"));
+    }
+
+    /**
+     * 把用户旧分桶（{@link #previousBuckets}）中的点赞行为迁移到新的分桶，迁移后从旧分桶中删除：
+     * 旧分桶不再是新的分桶时删除整个key，否则（例如 4 -> 8）只`HDEL`已迁移的field。
+     * 使用`HSETNX`，不会覆盖迁移期间新写入的值。
+     *
+     * @return 迁移的field个数
+     */
+    public long rebucket(Long userId) {
+        int from = previousBuckets;
+        if (from <= 0) {
+            return 0;
+        }
+
+        long migrated = 0;
+        for (String oldKey : keysPraise(userId, from)) {
+            Map<String, Map<String, Long>> moves = Maps.newHashMap();
+            try (Cursor<Map.Entry<String, Long>> cursor = hashOperations.scan(oldKey, ScanOptions.scanOptions().count(HASH_CHUNK_SIZE).build())) {
+                while (cursor.hasNext()) {
+                    Map.Entry<String, Long> entry = cursor.next();
+                    String newKey = keyPraise(userId, entry.getKey(), buckets);
+                    if (!newKey.equals(oldKey)) {
+                        moves.computeIfAbsent(newKey, k -> Maps.newHashMap()).put(entry.getKey(), entry.getValue());
+                    }
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("rebucket user-praise error, key: " + oldKey, e);
+            }
+
+            if (moves.isEmpty()) {
+                continue;
+            }
+
+            putIfAbsent(moves);
+            migrated += moves.values().stream().mapToInt(Map::size).sum();
+
+            if (keysPraise(userId, buckets).contains(oldKey)) {
+                // 例如 4 -> 8，旧分桶仍是新的分桶之一，只删除已迁移的field（这些field的写入已经路由到新的分桶）
+                List<Object> fields = Lists.newArrayList();
+                moves.values().forEach(values -> fields.addAll(values.keySet()));
+                for (List<Object> chunk : Lists.partition(fields, HASH_CHUNK_SIZE)) {
+                    hashOperations.delete(oldKey, chunk.toArray());
+                }
+            } else {
+                bigKeyDeleter.delete(oldKey);
+            }
+        }
+
+        return migrated;
+    }
+
+    /**
+     * 后台迁移所有用户（SCAN `user:praise:*`）。
+     *
+     * @return 迁移的用户数
+     */
+    public CompletableFuture<Long> rebucketAll() {
+        return CompletableFuture.supplyAsync(() -> {
+            Set<Long> userIds = Sets.newHashSet();
+            RedisOperations<String, ?> operations = hashOperations.getOperations();
+            operations.execute((RedisCallback<Object>) connection -> {
+                ScanOptions options = ScanOptions.scanOptions().match(String.format(K_T_HASH_USER_PRAISE, "*")).count(1000).build();
+                try (Cursor<byte[]> cursor = connection.scan(options)) {
+                    while (cursor.hasNext()) {
+                        Long userId = parseUserId(new String(cursor.next()));
+                        if (userId != null) {
+                            userIds.add(userId);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException("scan user-praise error", e);
+                }
+                return null;
+            });
+
+            long migrated = 0;
+            for (Long userId : userIds) {
+                migrated += rebucket(userId);
+            }
+
+            log.info("[vergilyn]rebucket user-praise finished >>>> users: {}, fields: {}", userIds.size(), migrated);
+            return (long) userIds.size();
+        }, migrator);
+    }
+
+    /**
+     * @return 最后访问时间 <= `before` 的用户（按最后访问时间正序），参考{@link UserPraiseArchiver}
+     */
+    List<Tuple<Long, Double>> rangeIdle(long before, int count) {
+        Set<RedisZSetCommands.Tuple> tuples = hashOperations.getOperations().execute(
+                (RedisCallback<Set<RedisZSetCommands.Tuple>>) connection -> connection.zRangeByScoreWithScores(
+                        SafeEncoder.encode(K_F_ZSET_USER_PRAISE_ACCESS),
+                        RedisZSetCommands.Range.range().lte(before),
+                        RedisZSetCommands.Limit.limit().count(count)));
+
+        List<Tuple<Long, Double>> rs = Lists.newArrayListWithCapacity(tuples == null ? 0 : tuples.size());
+        if (tuples != null) {
+            tuples.forEach(tuple -> rs.add(Tuple.of(Long.valueOf(SafeEncoder.encode(tuple.getValue())), tuple.getScore())));
+        }
+        return rs;
+    }
+
+    /**
+     * 归档用户的点赞行为：保存到{@link #archiveStore} -> 最后访问时间未改变时，标记为已归档并`RENAME`用户点赞行为 -> 删除。
+     * 只需要一个实例执行。
+     *
+     * @param lastAccess {@link #rangeIdle(long, int)}返回的最后访问时间
+     * @return false，归档期间用户被访问
+     */
+    boolean archive(Long userId, double lastAccess) {
+        Assert.state(archiveStore != null, "archiveStore must not be null");
+
+        RedisOperations<String, ?> operations = hashOperations.getOperations();
+        if (Boolean.TRUE.equals(operations.execute((RedisCallback<Boolean>) connection -> connection.sIsMember(
+                SafeEncoder.encode(K_F_SET_USER_PRAISE_ARCHIVED), SafeEncoder.encode(userId.toString()))))) {
+            return false;
+        }
+
+        // 旧分桶在前，当前分桶的值覆盖旧分桶
+        List<String> keys = Lists.newArrayList(keysPraise(userId));
+        Map<String, Long> praises = Maps.newHashMap();
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            try (Cursor<Map.Entry<String, Long>> cursor = hashOperations.scan(keys.get(i), ScanOptions.scanOptions().count(HASH_CHUNK_SIZE).build())) {
+                while (cursor.hasNext()) {
+                    Map.Entry<String, Long> entry = cursor.next();
+                    praises.put(entry.getKey(), entry.getValue());
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("archive user-praise error, key: " + keys.get(i), e);
+            }
+        }
+
+        archiveStore.save(userId, praises);
+
+        List<String> scriptKeys = Lists.newArrayList(K_F_ZSET_USER_PRAISE_ACCESS, K_F_SET_USER_PRAISE_ARCHIVED);
+        List<String> archivingKeys = Lists.newArrayListWithCapacity(keys.size());
+        for (int i = 0, len = keys.size(); i < len; i++) {
+            String archivingKey = String.format(K_T_HASH_USER_PRAISE_ARCHIVING, userId, i);
+            scriptKeys.add(keys.get(i));
+            scriptKeys.add(archivingKey);
+            archivingKeys.add(archivingKey);
+        }
+
+        Long rs = operations.execute(ARCHIVE_SCRIPT, RedisSerializerFactory.scriptArgs(), (RedisSerializer) RedisSerializer.string(),
+                scriptKeys, userId.toString(), String.valueOf((long) lastAccess));
+        if (rs == null || rs == 0) {
+            archiveStore.delete(Collections.singleton(userId));
+            return false;
+        }
+
+        touched.invalidate(userId);
+        archivingKeys.forEach(bigKeyDeleter::delete);
+        return true;
+    }
+
+    /**
+     * 开启归档前已存在的用户没有最后访问时间，根据`OBJECT IDLETIME`（同一个用户取最小值）初始化（`ZADD NX`）。
+     * 备注：`maxmemory-policy`是LFU时不支持`OBJECT IDLETIME`。
+     *
+     * @return 初始化的用户数
+     */
+    long seedAccess() {
+        Map<Long, Long> idles = Maps.newHashMap();
+        hashOperations.getOperations().execute((RedisCallback<Object>) connection -> {
+            ScanOptions options = ScanOptions.scanOptions().match(String.format(K_T_HASH_USER_PRAISE, "*")).count(1000).build();
+            try (Cursor<byte[]> cursor = connection.scan(options)) {
+                while (cursor.hasNext()) {
+                    byte[] key = cursor.next();
+                    Long userId = parseUserId(SafeEncoder.encode(key));
+                    Duration idle = userId == null ? null : connection.idletime(key);
+                    if (idle != null) {
+                        idles.merge(userId, idle.toMillis(), Math::min);
+                    }
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("scan user-praise error", e);
+            }
+            return null;
+        });
+
+        long now = System.currentTimeMillis();
+        hashOperations.getOperations().execute((RedisCallback<Object>) connection -> {
+            Pipeline pipeline = ((Jedis) connection.getNativeConnection()).pipelined();
+            idles.forEach((userId, idle) ->
+                    pipeline.zadd(K_F_ZSET_USER_PRAISE_ACCESS, now - idle, userId.toString(), ZAddParams.zAddParams().nx()));
+            pipeline.sync();
+            return null;
+        });
+
+        return idles.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        migrator.shutdown();
+    }
+
     public String keyPraise(Long userId){
         return String.format(K_T_HASH_USER_PRAISE, userId);
     }
 
+    public String keyPraise(Long userId, String field, int buckets){
+        if (buckets <= 1) {
+            return keyPraise(userId);
+        }
+
+        return String.format(K_T_HASH_USER_PRAISE_BUCKET, userId, (field.hashCode() & Integer.MAX_VALUE) % buckets);
+    }
+
+    public String keyPraiseCount(Byte businessType, Long businessId){
+        return String.format(K_T_HASH_BUSINESS_PRAISE_COUNT, businessType, businessId / PRAISE_COUNT_SHARD_SIZE);
+    }
+
     public String fieldPraise(Byte businessType, Long businessId){
         return businessType + CacheConstants.SEPARATOR_CHAR + businessId;
     }
@@ -80,4 +773,254 @@ public class UserPraiseCache {
     public Long valuePraise(){
         return System.currentTimeMillis();
     }
+
+    /**
+     * @return 每个桶不超过`maxEntriesPerBucket`个field时的分桶数
+     */
+    public static int bucketsFor(int expectedFields, int maxEntriesPerBucket) {
+        return Math.max(1, (expectedFields + maxEntriesPerBucket - 1) / maxEntriesPerBucket);
+    }
+
+    private List<String> keysPraise(Long userId, int buckets) {
+        if (buckets <= 1) {
+            return Lists.newArrayList(keyPraise(userId));
+        }
+
+        List<String> keys = Lists.newArrayListWithCapacity(buckets);
+        for (int i = 0; i < buckets; i++) {
+            keys.add(String.format(K_T_HASH_USER_PRAISE_BUCKET, userId, i));
+        }
+        return keys;
+    }
+
+    /**
+     * @return 当前分桶 和 迁移中的旧分桶 的所有key
+     */
+    private Set<String> keysPraise(Long userId) {
+        Set<String> keys = Sets.newLinkedHashSet(keysPraise(userId, buckets));
+        if (previousBuckets > 0) {
+            keys.addAll(keysPraise(userId, previousBuckets));
+        }
+        return keys;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void praise(Long userId, Byte businessType, Long businessId, Long value) {
+        RedisOperations<String, ?> operations = hashOperations.getOperations();
+        RedisSerializer<Long> hashValueSerializer = (RedisSerializer<Long>) operations.getHashValueSerializer();
+        RedisSerializer<String> hashKeySerializer = (RedisSerializer<String>) operations.getHashKeySerializer();
+
+        String field = fieldPraise(businessType, businessId);
+        List<String> keys = Lists.newArrayList(keyPraise(userId, field, buckets), keyPraiseCount(businessType, businessId),
+                K_F_SET_BUSINESS_PRAISE_COUNT_DIRTY, K_F_ZSET_USER_PRAISE_ACCESS, K_F_SET_USER_PRAISE_ARCHIVED);
+        if (previousBuckets > 0) {
+            keys.add(keyPraise(userId, field, previousBuckets));
+        }
+
+        while (true) {
+            Long rs = operations.execute(PRAISE_SCRIPT, RedisSerializerFactory.scriptArgs(), (RedisSerializer) RedisSerializer.string(), keys,
+                    hashKeySerializer.serialize(field), hashValueSerializer.serialize(value),
+                    hashValueSerializer.serialize(ZERO_LONG), businessId.toString(), userId.toString(),
+                    archiveStore == null ? "0" : String.valueOf(System.currentTimeMillis()));
+
+            if (rs == null || rs != ARCHIVED) {
+                return;
+            }
+
+            // 先恢复，否则重复点赞会重复计数
+            touched.invalidate(userId);
+            restore(Collections.singleton(userId));
+        }
+    }
+
+    /**
+     * 更新最后访问时间，并批量恢复已归档的用户：`HSETNX`（不覆盖恢复期间新写入的值） -> 移除archived标记 -> 删除归档。
+     * <p>
+     * {@link #touched}中的用户跳过：间隔远小于归档的`idleMillis`，这些用户不会被归档（归档时会从{@link #touched}中移除）。
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    private void restore(Collection<Long> userIds) {
+        if (archiveStore == null || userIds.isEmpty()) {
+            return;
+        }
+
+        Cache<Long, Boolean> touched = this.touched;
+        List<Long> touching = Lists.newArrayListWithCapacity(userIds.size());
+        userIds.forEach(userId -> {
+            if (touched.getIfPresent(userId) == null) {
+                touching.add(userId);
+            }
+        });
+        if (touching.isEmpty()) {
+            return;
+        }
+
+        RedisOperations<String, ?> operations = hashOperations.getOperations();
+        List<Object> args = Lists.newArrayListWithCapacity(touching.size() + 1);
+        args.add(System.currentTimeMillis());
+        args.addAll(touching);
+
+        List<String> archived = operations.execute(TOUCH_SCRIPT, RedisSerializerFactory.scriptArgs(), (RedisSerializer) RedisSerializer.string(),
+                Lists.newArrayList(K_F_ZSET_USER_PRAISE_ACCESS, K_F_SET_USER_PRAISE_ARCHIVED), args.toArray());
+
+        List<Long> archivedUserIds = Lists.newArrayListWithCapacity(archived == null ? 0 : archived.size());
+        if (archived != null) {
+            archived.forEach(userId -> archivedUserIds.add(Long.valueOf(userId)));
+        }
+
+        // 已归档的用户恢复成功后才能跳过
+        touching.forEach(userId -> {
+            if (!archivedUserIds.contains(userId)) {
+                touched.put(userId, Boolean.TRUE);
+            }
+        });
+        if (archivedUserIds.isEmpty()) {
+            return;
+        }
+
+        Map<String, Map<String, Long>> keyValues = Maps.newHashMap();
+        archiveStore.load(archivedUserIds).forEach((userId, praises) -> praises.forEach((field, value) ->
+                keyValues.computeIfAbsent(keyPraise(userId, field, buckets), k -> Maps.newHashMap()).put(field, value)));
+
+        putIfAbsent(keyValues);
+
+        long now = System.currentTimeMillis();
+        operations.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : archivedUserIds) {
+                byte[] member = SafeEncoder.encode(userId.toString());
+                connection.sRem(SafeEncoder.encode(K_F_SET_USER_PRAISE_ARCHIVED), member);
+                connection.zAdd(SafeEncoder.encode(K_F_ZSET_USER_PRAISE_ACCESS), now, member);
+            }
+            return null;
+        }, null);
+
+        archiveStore.delete(archivedUserIds);
+        archivedUserIds.forEach(userId -> touched.put(userId, Boolean.TRUE));
+        log.info("[vergilyn]restore user-praise >>>> {}", archivedUserIds);
+    }
+
+    private static Cache<Long, Boolean> touchedCache(long touchIntervalMillis) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(touchIntervalMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    private static long parseCount(byte[] value) {
+        Long count = value == null ? null : Longs.tryParse(SafeEncoder.encode(value));
+        return count == null ? 0 : count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> multiGet(Long userId, List<String> fields, int buckets) {
+        Map<String, List<String>> grouped = Maps.newLinkedHashMap();
+        fields.forEach(field -> grouped.computeIfAbsent(keyPraise(userId, field, buckets), k -> Lists.newArrayList()).add(field));
+
+        Map<String, Long> values = Maps.newHashMapWithExpectedSize(fields.size());
+        if (grouped.size() == 1) {
+            Map.Entry<String, List<String>> entry = grouped.entrySet().iterator().next();
+            List<Long> rs = hashOperations.multiGet(entry.getKey(), entry.getValue());
+            for (int i = 0, len = entry.getValue().size(); i < len; i++) {
+                values.put(entry.getValue().get(i), rs.get(i));
+            }
+            return values;
+        }
+
+        RedisOperations<String, ?> operations = hashOperations.getOperations();
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) operations.getKeySerializer();
+        RedisSerializer<String> hashKeySerializer = (RedisSerializer<String>) operations.getHashKeySerializer();
+        RedisSerializer<Long> hashValueSerializer = (RedisSerializer<Long>) operations.getHashValueSerializer();
+
+        // resultSerializer = null: 返回byte[]，使用hashValueSerializer反序列化
+        List<Object> results = operations.executePipelined((RedisCallback<Object>) connection -> {
+            grouped.forEach((key, keyFields) -> connection.hMGet(keySerializer.serialize(key),
+                    keyFields.stream().map(hashKeySerializer::serialize).toArray(byte[][]::new)));
+            return null;
+        }, null);
+
+        int index = 0;
+        for (List<String> keyFields : grouped.values()) {
+            List<byte[]> raw = (List<byte[]>) results.get(index++);
+            for (int i = 0, len = keyFields.size(); i < len; i++) {
+                values.put(keyFields.get(i), raw.get(i) == null ? null : hashValueSerializer.deserialize(raw.get(i)));
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * 查询`missing`中的下标，存在的从`missing`中移除。
+     */
+    @SuppressWarnings("unchecked")
+    private void multiGet(List<PraiseKey> praiseKeys, String[] fields, int buckets, BitSet missing, BitSet praised) {
+        Map<String, List<Integer>> grouped = Maps.newLinkedHashMap();
+        for (int i = missing.nextSetBit(0); i >= 0; i = missing.nextSetBit(i + 1)) {
+            grouped.computeIfAbsent(keyPraise(praiseKeys.get(i).getUserId(), fields[i], buckets), k -> Lists.newArrayList()).add(i);
+        }
+
+        RedisOperations<String, ?> operations = hashOperations.getOperations();
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) operations.getKeySerializer();
+        RedisSerializer<String> hashKeySerializer = (RedisSerializer<String>) operations.getHashKeySerializer();
+        byte[] zero = ((RedisSerializer<Long>) operations.getHashValueSerializer()).serialize(ZERO_LONG);
+
+        List<Object> results = operations.executePipelined((RedisCallback<Object>) connection -> {
+            grouped.forEach((key, indexes) -> connection.hMGet(keySerializer.serialize(key),
+                    indexes.stream().map(i -> hashKeySerializer.serialize(fields[i])).toArray(byte[][]::new)));
+            return null;
+        }, null);
+
+        int index = 0;
+        for (List<Integer> indexes : grouped.values()) {
+            List<byte[]> raw = (List<byte[]>) results.get(index++);
+            for (int i = 0, len = indexes.size(); i < len; i++) {
+                if (raw.get(i) == null) {
+                    continue;
+                }
+
+                missing.clear(indexes.get(i));
+                if (!Arrays.equals(zero, raw.get(i))) {
+                    praised.set(indexes.get(i));
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void putIfAbsent(Map<String, Map<String, Long>> keyValues) {
+        RedisOperations<String, ?> operations = hashOperations.getOperations();
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) operations.getKeySerializer();
+        RedisSerializer<String> hashKeySerializer = (RedisSerializer<String>) operations.getHashKeySerializer();
+        RedisSerializer<Long> hashValueSerializer = (RedisSerializer<Long>) operations.getHashValueSerializer();
+
+        operations.executePipelined((RedisCallback<Object>) connection -> {
+            keyValues.forEach((key, values) -> {
+                byte[] rawKey = keySerializer.serialize(key);
+                values.forEach((field, value) ->
+                        connection.hSetNX(rawKey, hashKeySerializer.serialize(field), hashValueSerializer.serialize(value)));
+            });
+            return null;
+        }, null);
+    }
+
+    /**
+     * `user:praise:{userId}` 或 `user:praise:{userId}:{bucket}`
+     */
+    private static Long parseUserId(String key) {
+        int begin = K_T_HASH_USER_PRAISE.length() - 2;
+        int end = key.indexOf(':', begin);
+        try {
+            return Long.valueOf(end < 0 ? key.substring(begin) : key.substring(begin, end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Value
+    public static class PraiseKey {
+        long userId;
+        byte businessType;
+        long businessId;
+    }
 }
@@ -0,0 +1,126 @@
+package com.vergilyn.examples.redis.usage.u0100.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+/**
+ * 业务点赞数的write-behind：定时把{@link UserPraiseCache#K_F_SET_BUSINESS_PRAISE_COUNT_DIRTY}中的点赞数批量写入DB。
+ * <p>
+ * 每一批：`SPOP count`并移动到processing -> pipeline HMGET点赞数 -> `batchWriter`写入DB -> 从processing移除。
+ * 写入的是redis中的点赞数（不是增量），所以写入期间又被修改的业务会重新标记为dirty，下一批再次写入最新的点赞数；
+ * 写入失败时重新标记为dirty（`batchWriter`需要幂等）。
+ * </p>
+ * 进程崩溃时，processing中的业务由{@link #start(long)}放回dirty，所以只能有一个实例执行。
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+// @Component
+@Slf4j
+public class UserPraiseCountFlusher implements AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final UserPraiseCache userPraiseCache;
+
+    /**
+     * key: {businessType}_{businessId}, value: 点赞数
+     */
+    private final Consumer<Map<String, Long>> batchWriter;
+    private final int batchSize;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("user-praise-count-flusher-%d").setDaemon(true).build());
+
+    public UserPraiseCountFlusher(UserPraiseCache userPraiseCache, Consumer<Map<String, Long>> batchWriter) {
+        this(userPraiseCache, batchWriter, DEFAULT_BATCH_SIZE);
+    }
+
+    public UserPraiseCountFlusher(UserPraiseCache userPraiseCache, Consumer<Map<String, Long>> batchWriter, int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+
+        this.userPraiseCache = userPraiseCache;
+        this.batchWriter = batchWriter;
+        this.batchSize = batchSize;
+    }
+
+    public UserPraiseCountFlusher start(long periodMillis) {
+        scheduler.execute(() -> {
+            try {
+                long recovered = userPraiseCache.recoverDirtyPraiseCounts();
+                if (recovered > 0) {
+                    log.info("[vergilyn]recover dirty praise-count >>>> {}", recovered);
+                }
+            } catch (Exception e) {
+                log.error("[vergilyn]recover dirty praise-count error >>>> {}", e.getMessage(), e);
+            }
+        });
+
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                long flushed = flushOnce();
+                if (flushed > 0) {
+                    log.info("[vergilyn]flush praise-count >>>> {}", flushed);
+                }
+            } catch (Exception e) {
+                log.error("[vergilyn]flush praise-count error >>>> {}", e.getMessage(), e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * 写入当前所有dirty的点赞数。
+     *
+     * @return 写入的业务数量
+     */
+    public synchronized long flushOnce() {
+        long flushed = 0;
+        while (true) {
+            List<String> fields = userPraiseCache.popDirtyPraiseCounts(batchSize);
+            if (fields.isEmpty()) {
+                return flushed;
+            }
+
+            try {
+                batchWriter.accept(userPraiseCache.getPraiseCounts(fields));
+            } catch (RuntimeException e) {
+                userPraiseCache.markDirtyPraiseCounts(fields);
+                throw e;
+            }
+            userPraiseCache.ackDirtyPraiseCounts(fields);
+
+            flushed += fields.size();
+            if (fields.size() < batchSize) {
+                return flushed;
+            }
+        }
+    }
+
+    /**
+     * 停止前写入剩余的点赞数。
+     */
+    @PreDestroy
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            flushOnce();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("[vergilyn]flush praise-count error >>>> {}", e.getMessage(), e);
+        }
+    }
+}
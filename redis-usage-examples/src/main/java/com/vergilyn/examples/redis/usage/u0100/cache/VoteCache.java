@@ -1,19 +1,46 @@
 package com.vergilyn.examples.redis.usage.u0100.cache;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.ToLongBiFunction;
 
 import com.alibaba.fastjson.JSON;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Longs;
+import com.vergilyn.examples.commons.domain.Tuple;
+import com.vergilyn.examples.commons.serializer.RedisSerializerFactory;
+import com.vergilyn.examples.commons.utils.RedisScriptPipelineUtils;
 import com.vergilyn.examples.redis.usage.u0100.entity.Vote;
 import com.vergilyn.examples.redis.usage.u0100.entity.VoteItem;
 import com.vergilyn.examples.redis.usage.u0100.entity.VoteLog;
 
 import org.apache.commons.lang3.time.DateUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.util.Assert;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.ZIncrByParams;
+import redis.clients.jedis.util.SafeEncoder;
 
 import static com.vergilyn.examples.redis.usage.u0100.cache.CacheConstants.DEFAULT_INCR;
 
@@ -68,17 +95,208 @@ public class VoteCache {
      * desc：保存投票记录
      * type：list
      * key：vote:item:log
-     * field：voteLog
+     * field：voteLog，JSON 或 {@link VoteLogCodec}（{@link LogFormat}）
      * expire：不自动失效，同步后从list中移除
      * </pre>
      */
     private static final String K_F_LIST_VOTE_ITEM_LOG = "vote:item:log";
 
+    /**
+     * <pre>
+     * desc：保存投票记录（{@link LogMode#STREAM}）
+     * type：stream
+     * key：vote:item:log:stream
+     * field：v = vote.id, i = item.id, u = user.id, t = voteTime(ms)
+     * expire：不自动失效，`XADD MAXLEN ~ {streamMaxLen}`修剪；通过consumer-group同步（{@link VoteLogStreamSyncWorker}）
+     * </pre>
+     */
+    static final String K_F_STREAM_VOTE_ITEM_LOG = "vote:item:log:stream";
+
+    /**
+     * <pre>
+     * desc：增量同步（{@link VoteCountSyncEngine}）的检查点，即已同步的`vote:item:timestamp`的最大score
+     * type：string
+     * key：vote:item:timestamp:checkpoint
+     * value：时间戳ms
+     * expire：不自动失效
+     * </pre>
+     */
+    private static final String K_F_STRING_VOTE_ITEM_SYNC_CHECKPOINT = "vote:item:timestamp:checkpoint";
+
+    /**
+     * <pre>
+     * desc：已投票的用户（一人一票），投票人数超过`voterSetThreshold`后转换为bitmap
+     * type：set
+     * key：vote:voter:{vote.id}:set，hash-tag保证同一个投票活动的voter-key在同一个slot
+     * member：{user.id}
+     * expire：与`vote:item:{vote.id}`相同
+     *
+     * type：bitmap（分片，每个分片`VOTER_BITMAP_SHARD_BITS`位）
+     * key：vote:voter:{vote.id}:bitmap:{user.id / VOTER_BITMAP_SHARD_BITS}
+     * offset：{user.id % VOTER_BITMAP_SHARD_BITS}
+     * expire：与`vote:item:{vote.id}`相同
+     *
+     * type：set，存在时表示已转换为bitmap
+     * key：vote:voter:{vote.id}:bitmap
+     * member：已创建的bitmap分片，{user.id / VOTER_BITMAP_SHARD_BITS}
+     * expire：与`vote:item:{vote.id}`相同
+     * </pre>
+     */
+    private static final String K_T_SET_VOTE_VOTER = "vote:voter:{%d}:set";
+    private static final String K_T_BITMAP_VOTE_VOTER = "vote:voter:{%d}:bitmap:%d";
+    private static final String K_T_SET_VOTE_VOTER_BITMAP_SHARDS = "vote:voter:{%d}:bitmap";
+
+    /**
+     * <pre>
+     * desc：投票人数（近似值，HyperLogLog）
+     * type：hyperloglog
+     * key：vote:voter:{vote.id}:hll
+     * expire：与`vote:item:{vote.id}`相同
+     * </pre>
+     */
+    private static final String K_T_HLL_VOTE_VOTER = "vote:voter:{%d}:hll";
+
     private static final String V_F_ZSET_VOTE_EXPIRED_TIMESTAMP = "expired-timestamp";
 
+    /**
+     * 每个bitmap分片`2^20`位（128KB）
+     */
+    public static final long VOTER_BITMAP_SHARD_BITS = 1 << 20;
+    public static final int DEFAULT_VOTER_SET_THRESHOLD = 4096;
+
+    /**
+     * {@link #incrCountOnce(VoteItem, VoteLog, ToLongBiFunction)}: 用户已投票
+     */
+    public static final long ALREADY_VOTED = -2;
+
+    /**
+     * 检查用户是否已投票，已投票时返回`{-2, 0}`。
+     * KEYS[4] = voter-set, KEYS[5] = voter-bitmap, KEYS[7] = voter-bitmap-shards, ARGV[5] = user.id, ARGV[6] = bitmap-offset
+     */
+    private static final String CHECK_VOTER_SCRIPT =
+            "if(redis.call('exists', KEYS[7]) == 1) then "
+          + "  if(redis.call('getbit', KEYS[5], ARGV[6]) == 1) then return {-2, 0}; end "
+          + "elseif(redis.call('sismember', KEYS[4], ARGV[5]) == 1) then "
+          + "  return {-2, 0}; "
+          + "end ";
+
+    /**
+     * 标记用户已投票，累加投票人数，voter-key与`vote:item:{vote.id}`相同的失效时间。
+     * set的元素个数超过阈值时`convert = 1`，由{@link #convertVoters(Long)}转换为bitmap（bitmap分片的key需要在KEYS中声明，不能在lua中拼接）。
+     * KEYS[2] = kc, KEYS[6] = voter-hll, ARGV[7] = voter-set-threshold, ARGV[8] = bitmap-shard
+     */
+    private static final String MARK_VOTER_SCRIPT =
+            "local convert = 0; "
+          + "if(redis.call('exists', KEYS[7]) == 1) then "
+          + "  redis.call('setbit', KEYS[5], ARGV[6], 1); "
+          + "  redis.call('sadd', KEYS[7], ARGV[8]); "
+          + "else "
+          + "  redis.call('sadd', KEYS[4], ARGV[5]); "
+          + "  if(redis.call('scard', KEYS[4]) > tonumber(ARGV[7])) then convert = 1; end "
+          + "end "
+          + "redis.call('pfadd', KEYS[6], ARGV[5]); "
+          + "local ttl = redis.call('pttl', KEYS[2]); "
+          + "if(ttl > 0) then "
+          + "  for i = 4, 7 do redis.call('pexpire', KEYS[i], ttl); end "
+          + "end ";
+
+    /**
+     * voter-set转换为分片的bitmap：仅当set的元素个数等于ARGV[1]（SMEMBERS之后没有新的投票人）时转换，否则返回0。
+     * KEYS[1] = voter-set, KEYS[2] = voter-bitmap-shards, KEYS[3] = kc, KEYS[4...] = voter-bitmap,
+     * ARGV[1] = scard, ARGV[2...#KEYS - 2] = KEYS[4...]的分片, 之后是[KEYS的下标, bitmap-offset, ...]
+     */
+    private static final RedisScript<Long> CONVERT_VOTERS_SCRIPT = new DefaultRedisScript<>(
+            "if(redis.call('exists', KEYS[2]) == 1) then return 1; end "
+          + "if(redis.call('scard', KEYS[1]) ~= tonumber(ARGV[1])) then return 0; end "
+          + "for i = #KEYS - 1, #ARGV, 2 do "
+          + "  redis.call('setbit', KEYS[tonumber(ARGV[i])], ARGV[i + 1], 1); "
+          + "end "
+          + "for i = 4, #KEYS do "
+          + "  redis.call('sadd', KEYS[2], ARGV[i - 2]); "
+          + "end "
+          + "local ttl = redis.call('pttl', KEYS[3]); "
+          + "if(ttl > 0) then "
+          + "  redis.call('pexpire', KEYS[2], ttl); "
+          + "  for i = 4, #KEYS do redis.call('pexpire', KEYS[i], ttl); end "
+          + "end "
+          + "redis.call('del', KEYS[1]); "
+          + "return 1;", Long.class);
+
+    private static final int CONVERT_VOTERS_RETRIES = 3;
+
+    /**
+     * 与{@link #incrCount(VoteItem, VoteLog, ToLongBiFunction)}中初始化票数的lua相同（不包含timestamp、log）。
+     * KEYS[1] = kc, ARGV[1] = mc, ARGV[2] = dbc, ARGV[3] = incr
+     */
+    private static final RedisScript<Long> INIT_COUNT_SCRIPT = new DefaultRedisScript<>(
+            "local rs, a = -1, redis.call('zadd', KEYS[1], 'NX', 'CH', ARGV[2] + ARGV[3], ARGV[1]); "
+          + "if(a == 0) then "
+          + "  rs = redis.call('zincrby', KEYS[1], ARGV[3], ARGV[1])"
+          + "else "
+          + "  rs = ARGV[2] + ARGV[3]"
+          + "end "
+          + "return rs + 0;", Long.class);
+
+    /**
+     * 仅当score未改变（同步后没有新的投票）时才移除timestamp。
+     * ARGV = [member, score, member, score, ...]
+     */
+    private static final RedisScript<Long> REMOVE_SYNCED_TIMESTAMP_SCRIPT = new DefaultRedisScript<>(
+            "local rs = 0; "
+          + "for i = 1, #ARGV, 2 do "
+          + "  local score = redis.call('zscore', KEYS[1], ARGV[i]); "
+          + "  if(score and tonumber(score) == tonumber(ARGV[i + 1])) then "
+          + "    rs = rs + redis.call('zrem', KEYS[1], ARGV[i]); "
+          + "  end "
+          + "end "
+          + "return rs;", Long.class);
+
+    /**
+     * 第i个投票活动：KEYS[4i-3...4i] = vote:item:{vote.id}, voter-set, voter-hll, voter-bitmap-shards，ARGV[i + 1] = 失效时间戳；
+     * ARGV[1] = "expired-timestamp"
+     */
+    private static final RedisScript<Long> ADJUST_COUNT_EXPIRE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #KEYS / 4 do "
+          + " redis.call('zadd', KEYS[4 * i - 3], ARGV[i + 1], ARGV[1]); "
+          + " for j = 4 * i - 3, 4 * i do redis.call('pexpireat', KEYS[j], ARGV[i + 1]); end "
+          + "end "
+          + "return #KEYS / 4;", Long.class);
+
+    public static final int DEFAULT_EXPIRE_KEYS_PER_CALL = 100;
+    public static final int DEFAULT_EXPIRE_CALLS_PER_PIPELINE = 50;
+
+    public static final long DEFAULT_STREAM_MAX_LEN = 1_000_000;
+
     @Autowired
     private StringRedisTemplate redisTemplate;
 
+    private LogMode logMode = LogMode.LIST;
+
+    private LogFormat logFormat = LogFormat.JSON;
+
+    private int voterSetThreshold = DEFAULT_VOTER_SET_THRESHOLD;
+
+    /**
+     * 需要大于 同步延迟期间的投票数，否则未同步的log会被修剪。
+     */
+    private long streamMaxLen = DEFAULT_STREAM_MAX_LEN;
+
+    public void setLogMode(LogMode logMode) {
+        this.logMode = logMode;
+    }
+
+    public void setLogFormat(LogFormat logFormat) {
+        this.logFormat = logFormat;
+    }
+
+    public void setStreamMaxLen(long streamMaxLen) {
+        this.streamMaxLen = streamMaxLen;
+    }
+
+    public void setVoterSetThreshold(int voterSetThreshold) {
+        this.voterSetThreshold = voterSetThreshold;
+    }
+
     private String keyCount(Vote vote) {
         Assert.notNull(vote);
         return keyCount(vote.getId());
@@ -90,7 +308,83 @@ public class VoteCache {
     }
 
     private String keyLog() {
-        return K_F_LIST_VOTE_ITEM_LOG;
+        return logMode == LogMode.STREAM ? K_F_STREAM_VOTE_ITEM_LOG : K_F_LIST_VOTE_ITEM_LOG;
+    }
+
+    /**
+     * 写入log的lua命令，log参数在ARGV的末尾（{@link #logArgs(VoteLog)}）。
+     *
+     * @param k log-key在KEYS中的下标
+     * @param a log参数在ARGV中的起始下标
+     */
+    private String logScript(int k, int a) {
+        if (logMode == LogMode.STREAM) {
+            return String.format("redis.call('xadd', KEYS[%d], 'MAXLEN', '~', ARGV[%d], '*', "
+                    + "'v', ARGV[%d], 'i', ARGV[%d], 'u', ARGV[%d], 't', ARGV[%d]); ", k, a, a + 1, a + 2, a + 3, a + 4);
+        }
+
+        return String.format("redis.call('lpush', KEYS[%d], ARGV[%d]); ", k, a);
+    }
+
+    private List<Object> logArgs(VoteLog log) {
+        if (logMode == LogMode.STREAM) {
+            Map<String, String> fields = streamFields(log);
+            return Lists.newArrayList(streamMaxLen + "", fields.get("v"), fields.get("i"), fields.get("u"), fields.get("t"));
+        }
+
+        return Lists.newArrayList(encodeLog(log));
+    }
+
+    private Object encodeLog(VoteLog log) {
+        return logFormat == LogFormat.BINARY ? VoteLogCodec.encode(log) : JSON.toJSONString(log);
+    }
+
+    /**
+     * 执行包含log参数的lua（{@link LogFormat#BINARY}的参数是byte[]）。
+     */
+    private Long executeWithLog(String script, List<String> keys, List<Object> args) {
+        return executeWithLog(script, Long.class, keys, args);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <T> T executeWithLog(String script, Class<T> resultType, List<String> keys, List<Object> args) {
+        return (T) redisTemplate.execute(new DefaultRedisScript<>(script, resultType),
+                RedisSerializerFactory.scriptArgs(), (RedisSerializer) RedisSerializer.string(), keys, args.toArray());
+    }
+
+    static Map<String, String> streamFields(VoteLog log) {
+        Map<String, String> fields = Maps.newHashMapWithExpectedSize(4);
+        fields.put("v", toStreamValue(log.getVoteId()));
+        fields.put("i", toStreamValue(log.getVoteItemId()));
+        fields.put("u", toStreamValue(log.getUserId()));
+        fields.put("t", log.getVoteTime() == null ? "" : log.getVoteTime().getTime() + "");
+        return fields;
+    }
+
+    /**
+     * @return 格式错误时返回null
+     */
+    static VoteLog parseStreamFields(Map<String, String> fields) {
+        try {
+            VoteLog log = new VoteLog();
+            log.setVoteId(parseStreamValue(fields.get("v")));
+            log.setVoteItemId(parseStreamValue(fields.get("i")));
+            log.setUserId(parseStreamValue(fields.get("u")));
+
+            Long time = parseStreamValue(fields.get("t"));
+            log.setVoteTime(time == null ? null : new Date(time));
+            return log.getVoteId() == null || log.getVoteItemId() == null ? null : log;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String toStreamValue(Long value) {
+        return value == null ? "" : value + "";
+    }
+
+    private static Long parseStreamValue(String value) {
+        return value == null || value.isEmpty() ? null : Long.valueOf(value);
     }
 
     private String keyTimestamp() {
@@ -111,25 +405,129 @@ public class VoteCache {
         Assert.notNull(item);
         Assert.notNull(item.getId());
         Assert.notNull(item.getVoteId());
-        return item.getVoteId() + CacheConstants.SEPARATOR_CHAR + item.getId();
+        return memberTimestamp(item.getVoteId(), item.getId());
+    }
+
+    public static String memberTimestamp(Long voteId, Long itemId) {
+        return voteId + CacheConstants.SEPARATOR_CHAR + itemId;
     }
 
     /**
-     * 创建/修改投票活动 时，维护redis的expire-time。
+     * 解析`{vote.id}_{item.id}`（不使用正则、split，避免同步大量member时的额外开销）
+     *
+     * @return [vote.id, item.id]；格式错误时返回null
+     */
+    public static long[] parseMemberTimestamp(String member) {
+        int index = member == null ? -1 : member.indexOf(CacheConstants.SEPARATOR_CHAR);
+        if (index <= 0 || index == member.length() - 1) {
+            return null;
+        }
+
+        try {
+            return new long[]{ Long.parseLong(member.substring(0, index)), Long.parseLong(member.substring(index + 1)) };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 创建/修改投票活动 时，维护redis的expire-time（包括已投票的用户）。
      */
     public void adjustCountExpire(Vote vote) {
-        String key = keyCount(vote);
+        Assert.notNull(vote);
         long expire = expireTimestamp(vote);
 
-        //  ARGV[1] = "expire-timestamp", ARGV[2] = timestamp
-        String script =
-            "for i, key in ipairs(KEYS) do "
-          + " redis.call('zadd', key, ARGV[2], ARGV[1]); "
-          + " redis.call('pexpireat', key, ARGV[2]); "
-          + "end";
-        redisTemplate.execute(new DefaultRedisScript<>(script),
-                Lists.newArrayList(key),
-                Lists.newArrayList(V_F_ZSET_VOTE_EXPIRED_TIMESTAMP, expire));
+        redisTemplate.execute(ADJUST_COUNT_EXPIRE_SCRIPT,
+                expireKeys(vote.getId()),
+                V_F_ZSET_VOTE_EXPIRED_TIMESTAMP, expire + "");
+
+        expireVoterBitmaps(Collections.singletonMap(vote.getId(), expire), 1);
+    }
+
+    /**
+     * 批量修改投票活动（例如 批量调整结束时间）时，维护redis的expire-time。
+     * <p>
+     * 每`keysPerCall`个投票活动作为一次EVALSHA（每个key有各自的失效时间），每`callsPerPipeline`次EVALSHA作为一个pipeline。
+     *
+     * @throws org.springframework.dao.InvalidDataAccessApiUsageException 任意一次调用失败（之前的调用已经生效）
+     */
+    public void adjustCountExpire(Collection<Vote> votes, int keysPerCall, int callsPerPipeline) {
+        // 同一个投票活动只保留最后一个
+        Map<Long, Long> expires = Maps.newLinkedHashMap();
+        votes.forEach(vote -> {
+            Assert.notNull(vote);
+            expires.put(vote.getId(), expireTimestamp(vote));
+        });
+
+        List<Tuple<List<String>, List<String>>> calls = Lists.newArrayListWithCapacity(expires.size() / keysPerCall + 1);
+        for (List<Map.Entry<Long, Long>> chunk : Iterables.partition(expires.entrySet(), keysPerCall)) {
+            List<String> keys = Lists.newArrayListWithCapacity(chunk.size() * 4);
+            List<String> args = Lists.newArrayListWithCapacity(chunk.size() + 1);
+            args.add(V_F_ZSET_VOTE_EXPIRED_TIMESTAMP);
+            chunk.forEach(entry -> {
+                keys.addAll(expireKeys(entry.getKey()));
+                args.add(entry.getValue() + "");
+            });
+            calls.add(Tuple.of(keys, args));
+        }
+
+        for (List<Tuple<List<String>, List<String>>> pipeline : Lists.partition(calls, callsPerPipeline)) {
+            for (Object result : RedisScriptPipelineUtils.evalsha(redisTemplate, ADJUST_COUNT_EXPIRE_SCRIPT, pipeline)) {
+                if (result instanceof JedisDataException) {
+                    throw new InvalidDataAccessApiUsageException(((JedisDataException) result).getMessage(), (JedisDataException) result);
+                }
+            }
+        }
+
+        expireVoterBitmaps(expires, keysPerCall);
+    }
+
+    public void adjustCountExpire(Collection<Vote> votes) {
+        adjustCountExpire(votes, DEFAULT_EXPIRE_KEYS_PER_CALL, DEFAULT_EXPIRE_CALLS_PER_PIPELINE);
+    }
+
+    /**
+     * {@link #ADJUST_COUNT_EXPIRE_SCRIPT}的KEYS：vote:item:{vote.id}, voter-set, voter-hll, voter-bitmap-shards
+     */
+    private List<String> expireKeys(Long voteId) {
+        return Lists.newArrayList(keyCount(voteId),
+                String.format(K_T_SET_VOTE_VOTER, voteId),
+                String.format(K_T_HLL_VOTE_VOTER, voteId),
+                String.format(K_T_SET_VOTE_VOTER_BITMAP_SHARDS, voteId));
+    }
+
+    /**
+     * 已创建的bitmap分片（voter-bitmap-shards）`PEXPIREAT`，投票时只会刷新投票人所在分片的失效时间。
+     * <p>
+     * 需要在{@link #ADJUST_COUNT_EXPIRE_SCRIPT}之后执行：之后创建的分片从`vote:item:{vote.id}`复制失效时间，之前创建的分片都可以读取到。
+     *
+     * @param expires key: vote.id, value: 失效时间戳
+     */
+    @SuppressWarnings("unchecked")
+    private void expireVoterBitmaps(Map<Long, Long> expires, int votesPerPipeline) {
+        for (List<Map.Entry<Long, Long>> chunk : Iterables.partition(expires.entrySet(), votesPerPipeline)) {
+            List<Object> shards = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                chunk.forEach(entry -> conn.sMembers(String.format(K_T_SET_VOTE_VOTER_BITMAP_SHARDS, entry.getKey())));
+                return null;
+            });
+
+            if (shards.stream().allMatch(members -> ((Set<String>) members).isEmpty())) {
+                continue;
+            }
+
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (int i = 0, len = chunk.size(); i < len; i++) {
+                    Long voteId = chunk.get(i).getKey();
+                    long expire = chunk.get(i).getValue();
+                    for (String shard : (Set<String>) shards.get(i)) {
+                        conn.pExpireAt(String.format(K_T_BITMAP_VOTE_VOTER, voteId, Long.parseLong(shard)), expire);
+                    }
+                }
+                return null;
+            });
+        }
     }
 
     /**
@@ -151,24 +549,23 @@ public class VoteCache {
         String st = currentTimeMillis + "";
 
         String kl = keyLog();
-        String vl = JSON.toJSONString(log);
 
         // KEYS[1] = kt, ARGV[1] = st, ARGV[2] = mt
-        // KEYS[2] = kl, ARGV[3] = vl
-        // KEYS[3] = kc, ARGV[4] = mc, ARGV[5] = sc, ARGV[6] = INCR
+        // KEYS[2] = kl, ARGV[6...] = log
+        // KEYS[3] = kc, ARGV[3] = mc, ARGV[4] = sc, ARGV[5] = INCR
         String script =
-            "redis.call('lpush', KEYS[2], ARGV[3]); "
-          + "local rs = redis.call('zadd', KEYS[3], 'XX', 'INCR', ARGV[6], ARGV[4]); "
+            logScript(2, 6)
+          + "local rs = redis.call('zadd', KEYS[3], 'XX', 'INCR', ARGV[5], ARGV[3]); "
           + "if(not rs) then "
-          + "  rs = redis.call('zadd', KEYS[3], 'NX', 'CH', ARGV[5], ARGV[4]) == 0 "
-          + "     and redis.call('zincrby', KEYS[3], ARGV[6], ARGV[4])"
-          + "     or ARGV[5];"
+          + "  rs = redis.call('zadd', KEYS[3], 'NX', 'CH', ARGV[4], ARGV[3]) == 0 "
+          + "     and redis.call('zincrby', KEYS[3], ARGV[5], ARGV[3])"
+          + "     or ARGV[4];"
           + "end "
           + "return rs + 0;";  // +0: 转换成数字。否则redisTemplate可能返回null
 
-        return Optional.ofNullable(redisTemplate.execute(new DefaultRedisScript<Long>(script, Long.class),
-                Lists.newArrayList(kt, kl, kc),
-                st, mt, vl, mc, sc, DEFAULT_INCR + "")).orElse(0L);
+        List<Object> args = Lists.newArrayList(st, mt, mc, sc, DEFAULT_INCR + "");
+        args.addAll(logArgs(log));
+        return Optional.ofNullable(executeWithLog(script, Lists.newArrayList(kt, kl, kc), args)).orElse(0L);
     }
 
     /**
@@ -201,33 +598,33 @@ public class VoteCache {
         String st = currentTimeMillis + "";
 
         String kl = keyLog();
-        String vl = JSON.toJSONString(log);
+        List<Object> vl = logArgs(log);
 
         // KEYS[1] = kt, ARGV[1] = st, ARGV[2] = mt
-        // KEYS[2] = kc, ARGV[3] = incr, ARGV[4] = mc, ARGV[6] = ec
-        // KEYS[3] = kl, ARGV[5] = vl
+        // KEYS[2] = kc, ARGV[3] = incr, ARGV[4] = mc
+        // KEYS[3] = kl, ARGV[5...] = log
         String script =
             "redis.call('zadd', KEYS[1], ARGV[1], ARGV[2]); "
           + "local rs, a = -1, redis.call('zadd', KEYS[2], 'XX', 'INCR', ARGV[3], ARGV[4]); "
           + "if(a) then "
           + "  rs = a; "
-          + "  redis.call('lpush', KEYS[3], ARGV[5]); "
+          + "  " + logScript(3, 5)
           + "end "
           + "return rs + 0;";
 
-        Long execute = redisTemplate.execute(new DefaultRedisScript<>(script, Long.class),
-                Lists.newArrayList(kt, kc, kl),
-                st, mt, DEFAULT_INCR + "", mc, vl);
+        List<Object> args = Lists.newArrayList(st, mt, DEFAULT_INCR + "", mc);
+        args.addAll(vl);
+        Long execute = executeWithLog(script, Lists.newArrayList(kt, kc, kl), args);
 
         if (execute == null || execute == -1) {
             long dbc = initCountFunction.applyAsLong(item, log);
 
             // KEYS[1] = kt, ARGV[1] = st, ARGV[2] = mt
             // KEYS[2] = kc, ARGV[3] = mc, ARGV[4] = dbc, ARGV[5] = incr
-            // KEYS[3] = kl, ARGV[6] = vl
+            // KEYS[3] = kl, ARGV[6...] = log
             script =
                 "redis.call('zadd', KEYS[1], ARGV[1], ARGV[2]); "
-              + "redis.call('lpush', KEYS[3], ARGV[6]); "
+              + logScript(3, 6)
               + "local rs, a = -1, redis.call('zadd', KEYS[2], 'NX', 'CH', ARGV[4] + ARGV[5], ARGV[3]); "
               + "if(a == 0) then "
               + "  rs = redis.call('zincrby', KEYS[2], ARGV[5], ARGV[3])"
@@ -236,16 +633,446 @@ public class VoteCache {
               + "end "
               + "return rs + 0;";
 
-            execute = redisTemplate.execute(new DefaultRedisScript<>(script, Long.class),
-                    Lists.newArrayList(kt, kc, kl),
-                    st, mt, mc, dbc + "", DEFAULT_INCR + "", vl);
+            args = Lists.newArrayList(st, mt, mc, dbc + "", DEFAULT_INCR + "");
+            args.addAll(vl);
+            execute = executeWithLog(script, Lists.newArrayList(kt, kc, kl), args);
         }
 
         return execute == null ? 0 : execute;
     }
 
+    /**
+     * 一人一票：与{@link #incrCount(VoteItem, VoteLog, ToLongBiFunction)}相同，并且在同一个lua中检查、标记用户已投票，累加投票人数（HyperLogLog）。
+     * 用户已投票时不修改票数、不保存log。
+     * <p>
+     * 投票人数不超过`voterSetThreshold`时保存在set中，超过后转换为分片的bitmap（{@link #convertVoters(Long)}）。
+     *
+     * @return 投票后的票数；{@link #ALREADY_VOTED}: 用户已投票；-1: 投票错误
+     */
+    public long incrCountOnce(VoteItem item, VoteLog log, ToLongBiFunction<VoteItem, VoteLog> initCountFunction) {
+        Long voteId = item.getVoteId();
+        Long userId = log.getUserId();
+        Assert.notNull(userId, "userId must not be null");
+        Assert.isTrue(userId >= 0, "userId must not be negative");
+
+        List<String> keys = Lists.newArrayList(keyTimestamp(), keyCount(voteId), keyLog(),
+                String.format(K_T_SET_VOTE_VOTER, voteId),
+                keyVoterBitmap(voteId, userId),
+                String.format(K_T_HLL_VOTE_VOTER, voteId),
+                String.format(K_T_SET_VOTE_VOTER_BITMAP_SHARDS, voteId));
+
+        // ARGV[1] = st, ARGV[2] = mt, ARGV[3] = incr, ARGV[4] = mc,
+        // ARGV[5] = user.id, ARGV[6] = bitmap-offset, ARGV[7] = voter-set-threshold, ARGV[8] = bitmap-shard,
+        // ARGV[9] = dbc, ARGV[10...] = log
+        List<Object> args = Lists.newArrayList(System.currentTimeMillis() + "", memberTimestamp(item), DEFAULT_INCR + "", memberCount(item),
+                userId + "", userId % VOTER_BITMAP_SHARD_BITS + "", voterSetThreshold + "", userId / VOTER_BITMAP_SHARD_BITS + "", "");
+        args.addAll(logArgs(log));
+
+        // return {票数, convert}；缓存中不存在投票项时返回-1，此时不标记用户已投票
+        String script =
+            CHECK_VOTER_SCRIPT
+          + "local rs = redis.call('zadd', KEYS[2], 'XX', 'INCR', ARGV[3], ARGV[4]); "
+          + "if(not rs) then return {-1, 0}; end "
+          + "redis.call('zadd', KEYS[1], ARGV[1], ARGV[2]); "
+          + MARK_VOTER_SCRIPT
+          + logScript(3, 10)
+          + "return {rs + 0, convert};";
+
+        List<?> execute = executeWithLog(script, List.class, keys, args);
+        if (execute == null || ((Long) execute.get(0)) == -1) {
+            args.set(8, initCountFunction.applyAsLong(item, log) + "");
+
+            script =
+                CHECK_VOTER_SCRIPT
+              + "local rs = -1; "
+              + "if(redis.call('zadd', KEYS[2], 'NX', 'CH', ARGV[9] + ARGV[3], ARGV[4]) == 0) then "
+              + "  rs = redis.call('zincrby', KEYS[2], ARGV[3], ARGV[4]); "
+              + "else "
+              + "  rs = ARGV[9] + ARGV[3]; "
+              + "end "
+              + "redis.call('zadd', KEYS[1], ARGV[1], ARGV[2]); "
+              + MARK_VOTER_SCRIPT
+              + logScript(3, 10)
+              + "return {rs + 0, convert};";
+
+            execute = executeWithLog(script, List.class, keys, args);
+        }
+
+        if (execute == null) {
+            return -1;
+        }
+
+        if (((Long) execute.get(1)) == 1) {
+            convertVoters(voteId);
+        }
+        return (Long) execute.get(0);
+    }
+
+    /**
+     * voter-set转换为分片的bitmap。SMEMBERS之后有新的投票人时重试，最多{@link #CONVERT_VOTERS_RETRIES}次；
+     * 未转换时仍然保存在set中（下一次投票时再次转换），不影响检查用户是否已投票。
+     *
+     * @return true: 已转换
+     */
+    private boolean convertVoters(Long voteId) {
+        String setKey = String.format(K_T_SET_VOTE_VOTER, voteId);
+
+        for (int i = 0; i < CONVERT_VOTERS_RETRIES; i++) {
+            Set<String> members = redisTemplate.opsForSet().members(setKey);
+            if (members == null || members.isEmpty()) {
+                return true;
+            }
+
+            // key: bitmap分片，value: 分片的key在KEYS中的下标（从1开始）
+            Map<Long, Integer> shards = Maps.newLinkedHashMap();
+            List<String> keys = Lists.newArrayList(setKey, String.format(K_T_SET_VOTE_VOTER_BITMAP_SHARDS, voteId), keyCount(voteId));
+            List<String> offsets = Lists.newArrayListWithCapacity(members.size() * 2);
+            for (String member : members) {
+                long userId = Long.parseLong(member);
+                Integer index = shards.computeIfAbsent(userId / VOTER_BITMAP_SHARD_BITS, shard -> {
+                    keys.add(keyVoterBitmap(voteId, userId));
+                    return keys.size();
+                });
+
+                offsets.add(index + "");
+                offsets.add(userId % VOTER_BITMAP_SHARD_BITS + "");
+            }
+
+            List<String> args = Lists.newArrayListWithCapacity(1 + shards.size() + offsets.size());
+            args.add(members.size() + "");
+            shards.keySet().forEach(shard -> args.add(shard + ""));
+            args.addAll(offsets);
+
+            Long converted = redisTemplate.execute(CONVERT_VOTERS_SCRIPT, keys, args.toArray());
+            if (converted != null && converted == 1) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public boolean hasVoted(Long voteId, Long userId) {
+        return Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection -> {
+            Jedis jedis = (Jedis) connection.getNativeConnection();
+            if (jedis.exists(String.format(K_T_SET_VOTE_VOTER_BITMAP_SHARDS, voteId))) {
+                return jedis.getbit(keyVoterBitmap(voteId, userId), userId % VOTER_BITMAP_SHARD_BITS);
+            }
+            return jedis.sismember(String.format(K_T_SET_VOTE_VOTER, voteId), userId + "");
+        }));
+    }
+
+    /**
+     * @return 投票人数（近似值，HyperLogLog标准误差0.81%）
+     */
+    public long countVoters(Long voteId) {
+        return Optional.ofNullable(redisTemplate.opsForHyperLogLog().size(String.format(K_T_HLL_VOTE_VOTER, voteId))).orElse(0L);
+    }
+
+    private String keyVoterBitmap(Long voteId, Long userId) {
+        return String.format(K_T_BITMAP_VOTE_VOTER, voteId, userId / VOTER_BITMAP_SHARD_BITS);
+    }
+
+    /**
+     * 同步log（{@link LogMode#LIST}）：原子的读取并移除最早的`count`个log（LRANGE + LTRIM）。
+     * 直接解析二进制的value（不转换为String），兼容JSON格式。
+     *
+     * @param count 大于0
+     * @return 按投票顺序；格式错误的log被忽略
+     */
+    public List<VoteLog> popLogs(int count) {
+        Assert.isTrue(count > 0, "count must be greater than 0");
+
+        byte[] key = SafeEncoder.encode(K_F_LIST_VOTE_ITEM_LOG);
+
+        List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> {
+            Transaction transaction = ((Jedis) connection.getNativeConnection()).multi();
+            Response<List<byte[]>> range = transaction.lrange(key, -count, -1);
+            transaction.ltrim(key, 0, -count - 1);
+            transaction.exec();
+            return range.get();
+        });
+
+        List<VoteLog> logs = Lists.newArrayListWithCapacity(values.size());
+        // LPUSH：最早的log在list的末尾
+        for (int i = values.size() - 1; i >= 0; i--) {
+            VoteLog log = VoteLogCodec.decode(values.get(i));
+            if (log != null) {
+                logs.add(log);
+            }
+        }
+        return logs;
+    }
+
+    /**
+     * @return 缓存中的票数，不存在时返回null
+     */
+    public Long getCount(Long voteId, Long itemId) {
+        Double score = redisTemplate.opsForZSet().score(keyCount(voteId), memberCount(itemId));
+        return score == null ? null : score.longValue();
+    }
+
+    /**
+     * `ZREVRANGE vote:item:{vote.id} 0 count WITHSCORES`，并过滤{@link #V_F_ZSET_VOTE_EXPIRED_TIMESTAMP}。
+     *
+     * @return 按票数倒序，first: item.id，second: 票数
+     */
+    public List<Tuple<Long, Long>> reverseRangeCount(Long voteId, int count) {
+        // `expired-timestamp`的score是时间戳，总是排在第一位，所以多读取一个
+        Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                .reverseRangeWithScores(keyCount(voteId), 0, count);
+        if (tuples == null || tuples.isEmpty()) {
+            return Lists.newArrayList();
+        }
+
+        List<Tuple<Long, Long>> result = Lists.newArrayListWithCapacity(tuples.size());
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            if (V_F_ZSET_VOTE_EXPIRED_TIMESTAMP.equals(tuple.getValue()) || result.size() >= count) {
+                continue;
+            }
+
+            result.add(Tuple.of(Long.valueOf(tuple.getValue()), tuple.getScore().longValue()));
+        }
+        return result;
+    }
+
+    /**
+     * 批量增加票数（例如 {@link VoteCountAggregator} 合并后的票数）：
+     * <pre>
+     *   1. 一次pipeline：每个投票项一次`ZINCRBY XX`，每个投票项更新一次timestamp；
+     *   2. 缓存中不存在的投票项，通过`initCountFunction`获取DB中的票数后初始化（第二次pipeline）；
+     *   3. 最后写入log：合并为一次LPUSH（{@link LogMode#STREAM}: 每个log一次XADD）。
+     * </pre>
+     * 票数写入成功的投票项（不能重复写入）都会回调`applied`；抛出异常时log都未写入（log是最后一步）。
+     *
+     * @param deltas key: {@link #memberTimestamp(Long, Long)}, value: 增加的票数
+     * @param initCountFunction (vote.id, item.id) -> DB中的票数
+     * @param applied 票数已写入redis的投票项（key of `deltas`）
+     * @throws InvalidDataAccessApiUsageException 任意投票项执行失败（其余投票项不受影响）
+     */
+    public void incrCountBatch(Map<String, Long> deltas, List<VoteLog> logs, ToLongBiFunction<Long, Long> initCountFunction,
+                               Consumer<String> applied) {
+        if (deltas.isEmpty() && logs.isEmpty()) {
+            return;
+        }
+
+        long st = System.currentTimeMillis();
+        List<Tuple<String, long[]>> items = Lists.newArrayListWithCapacity(deltas.size());
+        deltas.forEach((member, delta) -> {
+            long[] ids = parseMemberTimestamp(member);
+            Assert.notNull(ids, "invalid vote-item: " + member);
+            items.add(Tuple.of(member, new long[]{ ids[0], ids[1], delta }));
+        });
+
+        List<Response<Double>> responses = redisTemplate.execute((RedisCallback<List<Response<Double>>>) connection -> {
+            Pipeline pipeline = ((Jedis) connection.getNativeConnection()).pipelined();
+
+            List<Response<Double>> rs = Lists.newArrayListWithCapacity(items.size());
+            for (Tuple<String, long[]> item : items) {
+                long[] v = item.getSecond();
+                pipeline.zadd(keyTimestamp(), st, item.getFirst());
+                rs.add(pipeline.zincrby(keyCount(v[0]), v[2], memberCount(v[1]), ZIncrByParams.zIncrByParams().xx()));
+            }
+
+            pipeline.sync();
+            return rs;
+        });
+
+        // 缓存中不存在的投票项
+        List<Tuple<String, long[]>> missing = Lists.newArrayList();
+        JedisDataException error = null;
+        for (int i = 0, len = items.size(); i < len; i++) {
+            Double score;
+            try {
+                score = responses.get(i).get();
+            } catch (JedisDataException e) {
+                error = error == null ? e : error;
+                continue;
+            }
+
+            if (score != null) {
+                applied.accept(items.get(i).getFirst());
+            } else {
+                missing.add(items.get(i));
+            }
+        }
+        throwIfError(error);
+
+        List<Tuple<List<String>, List<String>>> calls = Lists.newArrayListWithCapacity(missing.size());
+        for (Tuple<String, long[]> item : missing) {
+            long[] v = item.getSecond();
+            long dbc = initCountFunction.applyAsLong(v[0], v[1]);
+            calls.add(Tuple.of(Lists.newArrayList(keyCount(v[0])), Lists.newArrayList(memberCount(v[1]), dbc + "", v[2] + "")));
+        }
+
+        List<Object> results = RedisScriptPipelineUtils.evalsha(redisTemplate, INIT_COUNT_SCRIPT, calls);
+        for (int i = 0, len = results.size(); i < len; i++) {
+            if (results.get(i) instanceof JedisDataException) {
+                error = error == null ? (JedisDataException) results.get(i) : error;
+            } else {
+                applied.accept(missing.get(i).getFirst());
+            }
+        }
+        throwIfError(error);
+
+        if (!logs.isEmpty()) {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                Pipeline pipeline = ((Jedis) connection.getNativeConnection()).pipelined();
+
+                List<Response<?>> rs = Lists.newArrayList();
+                if (logMode == LogMode.STREAM) {
+                    logs.forEach(log -> rs.add(pipeline.xadd(keyLog(), StreamEntryID.NEW_ENTRY, streamFields(log), streamMaxLen, true)));
+                } else if (logFormat == LogFormat.BINARY) {
+                    rs.add(pipeline.lpush(SafeEncoder.encode(keyLog()), logs.stream().map(VoteLogCodec::encode).toArray(byte[][]::new)));
+                } else {
+                    rs.add(pipeline.lpush(keyLog(), logs.stream().map(JSON::toJSONString).toArray(String[]::new)));
+                }
+
+                pipeline.sync();
+                // 命令错误时抛出 JedisDataException
+                rs.forEach(Response::get);
+                return null;
+            });
+        }
+    }
+
+    private static void throwIfError(JedisDataException error) {
+        if (error != null) {
+            throw new InvalidDataAccessApiUsageException(error.getMessage(), error);
+        }
+    }
+
+    /**
+     * `ZRANGEBYSCORE vote:item:timestamp min max WITHSCORES LIMIT 0 count`
+     *
+     * @return first: {vote.id}_{item.id}, second: 最后一次得票时间
+     */
+    public List<Tuple<String, Double>> rangeTimestamp(double min, double max, int count) {
+        Collection<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(keyTimestamp(), min, max, 0, count);
+        if (tuples == null || tuples.isEmpty()) {
+            return Lists.newArrayList();
+        }
+
+        List<Tuple<String, Double>> result = Lists.newArrayListWithCapacity(tuples.size());
+        tuples.forEach(tuple -> result.add(Tuple.of(tuple.getValue(), tuple.getScore())));
+        return result;
+    }
+
+    /**
+     * @return 最早（未同步）的得票时间，不存在时返回null
+     */
+    public Double oldestTimestamp() {
+        Collection<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet().rangeWithScores(keyTimestamp(), 0, 0);
+        return tuples == null || tuples.isEmpty() ? null : tuples.iterator().next().getScore();
+    }
+
+    public long countTimestamp(double min, double max) {
+        return Optional.ofNullable(redisTemplate.opsForZSet().count(keyTimestamp(), min, max)).orElse(0L);
+    }
+
+    /**
+     * 一次pipeline获取多个投票项的票数（ZSCORE）。
+     *
+     * @param members {@link #memberTimestamp(Long, Long)}
+     * @return key: member，value: 票数；缓存中不存在（或格式错误）的不包含在结果中
+     */
+    public Map<String, Long> getCounts(Collection<String> members) {
+        List<Tuple<String, long[]>> items = Lists.newArrayListWithCapacity(members.size());
+        for (String member : members) {
+            long[] ids = parseMemberTimestamp(member);
+            if (ids != null) {
+                items.add(Tuple.of(member, ids));
+            }
+        }
+
+        if (items.isEmpty()) {
+            return Maps.newHashMap();
+        }
+
+        List<Response<Double>> responses = redisTemplate.execute((RedisCallback<List<Response<Double>>>) connection -> {
+            Pipeline pipeline = ((Jedis) connection.getNativeConnection()).pipelined();
+
+            List<Response<Double>> rs = Lists.newArrayListWithCapacity(items.size());
+            for (Tuple<String, long[]> item : items) {
+                rs.add(pipeline.zscore(keyCount(item.getSecond()[0]), memberCount(item.getSecond()[1])));
+            }
+
+            pipeline.sync();
+            return rs;
+        });
+
+        Map<String, Long> result = Maps.newHashMapWithExpectedSize(items.size());
+        for (int i = 0, len = items.size(); i < len; i++) {
+            Double score = responses.get(i).get();
+            if (score != null) {
+                result.put(items.get(i).getFirst(), score.longValue());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 移除已同步的timestamp，同步期间又有投票（score已改变）的不移除。
+     *
+     * @param synced first: member, second: 同步时读取到的score
+     * @return 移除的数量
+     */
+    public long removeSyncedTimestamps(List<Tuple<String, Double>> synced) {
+        if (synced.isEmpty()) {
+            return 0;
+        }
+
+        List<String> args = Lists.newArrayListWithCapacity(synced.size() * 2);
+        synced.forEach(tuple -> {
+            args.add(tuple.getFirst());
+            args.add(tuple.getSecond().toString());
+        });
+
+        return Optional.ofNullable(redisTemplate.execute(REMOVE_SYNCED_TIMESTAMP_SCRIPT,
+                Lists.newArrayList(keyTimestamp()), args.toArray())).orElse(0L);
+    }
+
+    /**
+     * @return 不存在时返回0
+     */
+    public long getSyncCheckpoint() {
+        String checkpoint = redisTemplate.opsForValue().get(K_F_STRING_VOTE_ITEM_SYNC_CHECKPOINT);
+        Long value = checkpoint == null ? null : Longs.tryParse(checkpoint);
+        return value == null ? 0 : value;
+    }
+
+    public void setSyncCheckpoint(long checkpoint) {
+        redisTemplate.opsForValue().set(K_F_STRING_VOTE_ITEM_SYNC_CHECKPOINT, checkpoint + "");
+    }
+
     private long expireTimestamp(Vote vote) {
         return DateUtils.addDays(vote.getEndTime(), 10).getTime();
     }
 
+    /**
+     * {@link LogMode#LIST}中log的格式，{@link #popLogs(int)}可以同时解析两种格式。
+     */
+    public enum LogFormat {
+        JSON,
+
+        /**
+         * {@link VoteLogCodec}
+         */
+        BINARY
+    }
+
+    public enum LogMode {
+        /**
+         * {@link #K_F_LIST_VOTE_ITEM_LOG}，格式由{@link LogFormat}决定。同步时{@link VoteCache#popLogs(int)}（LRANGE + LTRIM），同步失败可能丢失log。
+         */
+        LIST,
+
+        /**
+         * {@link #K_F_STREAM_VOTE_ITEM_LOG}，通过consumer-group同步，至少一次（at-least-once）。
+         */
+        STREAM
+    }
+
 }
@@ -0,0 +1,215 @@
+package com.vergilyn.examples.redis.usage.u0100.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongBiFunction;
+
+import javax.annotation.PreDestroy;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.vergilyn.examples.redis.usage.u0100.entity.VoteItem;
+import com.vergilyn.examples.redis.usage.u0100.entity.VoteLog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+/**
+ * 投票数本地聚合（热点投票活动，避免每一票都执行一次 {@link VoteCache#incrCount}）。
+ * <p>
+ * <ol>
+ * <li>投票时只累加本地计数器（key: {vote.id}_{item.id}，{@link LongAdder}），投票记录放入本地队列；</li>
+ * <li>每隔`flushIntervalMillis`（或者待写入的票数达到`maxPendingVotes`）通过 {@link VoteCache#incrCountBatch} 写入redis，
+ * 每个投票项只有一次ZINCRBY；</li>
+ * <li>进程崩溃时最多丢失 一个周期内 且 不超过`maxPendingVotes` 的票数（及投票记录）；</li>
+ * <li>读取：{@link #getCount(Long, Long)} = redis中的票数 + 本地未写入的票数（写入redis的过程中，可能短暂的少于实际票数）。</li>
+ * </ol>
+ * </p>
+ * 备注：多个实例时，{@link #getCount(Long, Long)}只包含当前实例未写入的票数。
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+// @Component
+@Slf4j
+public class VoteCountAggregator implements AutoCloseable {
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+    public static final long DEFAULT_MAX_PENDING_VOTES = 10_000;
+
+    private final VoteCache voteCache;
+    private final ToLongBiFunction<Long, Long> initCountFunction;
+    private final long flushIntervalMillis;
+    private final long maxPendingVotes;
+
+    /**
+     * key: {vote.id}_{item.id}，value: 未写入redis的票数
+     */
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Queue<VoteLog> logs = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    /**
+     * 达到`maxPendingVotes`时最多提交一个flush任务（redis不可用时，避免每一票都向scheduler的队列添加任务）
+     */
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("vote-count-aggregator-%d").setDaemon(true).build());
+
+    /**
+     * @param initCountFunction (vote.id, item.id) -> DB中的票数，缓存中不存在投票项时调用
+     */
+    public VoteCountAggregator(VoteCache voteCache, ToLongBiFunction<Long, Long> initCountFunction) {
+        this(voteCache, initCountFunction, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_MAX_PENDING_VOTES);
+    }
+
+    public VoteCountAggregator(VoteCache voteCache, ToLongBiFunction<Long, Long> initCountFunction,
+                               long flushIntervalMillis, long maxPendingVotes) {
+        Assert.isTrue(flushIntervalMillis > 0, "flushIntervalMillis must be greater than 0");
+        Assert.isTrue(maxPendingVotes > 0, "maxPendingVotes must be greater than 0");
+
+        this.voteCache = voteCache;
+        this.initCountFunction = initCountFunction;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxPendingVotes = maxPendingVotes;
+    }
+
+    public VoteCountAggregator start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * 代替 {@link VoteCache#incrCount}，只写入本地。
+     */
+    public void incrCount(VoteItem item, VoteLog voteLog) {
+        Assert.notNull(item.getVoteId());
+        Assert.notNull(item.getId());
+
+        counters.computeIfAbsent(VoteCache.memberTimestamp(item.getVoteId(), item.getId()), k -> new LongAdder())
+                .add(CacheConstants.DEFAULT_INCR);
+        logs.offer(voteLog);
+
+        if (pending.incrementAndGet() >= maxPendingVotes && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // vergilyn-comment, 2026-10-19 >>>> 已经close()，票数已写入本地，不能抛出异常（调用方重试会重复计票）
+                flushRequested.set(false);
+                log.warn("[vergilyn]vote-count-aggregator closed >>>> pending: {}", pending.get());
+            }
+        }
+    }
+
+    /**
+     * @return redis中的票数 + 本地未写入的票数；都不存在时返回null
+     */
+    public Long getCount(Long voteId, Long itemId) {
+        LongAdder adder = counters.get(VoteCache.memberTimestamp(voteId, itemId));
+        long local = adder == null ? 0 : adder.sum();
+
+        Long count = voteCache.getCount(voteId, itemId);
+        if (count == null) {
+            return local == 0 ? null : local;
+        }
+
+        return count + local;
+    }
+
+    /**
+     * 写入redis。同一时间只有一个线程执行，其余调用直接返回。
+     *
+     * @return 写入的投票项数
+     */
+    public int flush() {
+        flushRequested.set(false);
+
+        if (!flushing.compareAndSet(false, true)) {
+            return 0;
+        }
+
+        try {
+            return doFlush();
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushIntervalMillis * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+    }
+
+    private int doFlush() {
+        Map<String, Long> deltas = Maps.newHashMap();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            LongAdder adder = entry.getValue();
+            // vergilyn-comment, 2026-10-19 >>>> 不使用`sumThenReset()`，避免丢失`sum()`之后的累加
+            // 不移除sum为0的adder（投票项数量有限），避免移除时并发`add`的票数丢失
+            long delta = adder.sum();
+            if (delta == 0) {
+                continue;
+            }
+
+            adder.add(-delta);
+            deltas.put(entry.getKey(), delta);
+        }
+
+        List<VoteLog> drained = Lists.newArrayList();
+        for (VoteLog log = logs.poll(); log != null; log = logs.poll()) {
+            drained.add(log);
+        }
+
+        if (deltas.isEmpty() && drained.isEmpty()) {
+            return 0;
+        }
+
+        pending.addAndGet(-drained.size());
+        Set<String> applied = Sets.newHashSetWithExpectedSize(deltas.size());
+        try {
+            voteCache.incrCountBatch(deltas, drained, initCountFunction, applied::add);
+        } catch (RuntimeException e) {
+            // 写回本地，下一个周期重试。已写入redis的票数不能写回（否则重复计票）；log是最后一步，异常时都未写入
+            deltas.forEach((member, delta) -> {
+                if (!applied.contains(member)) {
+                    counters.computeIfAbsent(member, k -> new LongAdder()).add(delta);
+                }
+            });
+            logs.addAll(drained);
+            pending.addAndGet(drained.size());
+            throw e;
+        }
+
+        return deltas.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("[vergilyn]flush vote-count error >>>> {}", e.getMessage(), e);
+        }
+    }
+}
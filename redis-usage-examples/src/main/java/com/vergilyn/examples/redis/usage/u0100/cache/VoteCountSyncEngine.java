@@ -0,0 +1,223 @@
+package com.vergilyn.examples.redis.usage.u0100.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.vergilyn.examples.commons.domain.Tuple;
+import com.vergilyn.examples.redis.usage.u0100.entity.VoteItem;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+/**
+ * 根据`vote:item:timestamp`增量同步票数到DB。
+ * <p>
+ * 每次同步（{@link #syncOnce()}）：
+ * <ol>
+ * <li>窗口：[-inf, now - safetyMillis]，每次`ZRANGEBYSCORE ... LIMIT 0 pageSize`读取一页；</li>
+ * <li>按`vote.id % partitions`分组，各分区并行：pipeline ZSCORE获取票数 -> `upsert`批量写入DB -> 移除同步后没有新投票的timestamp；</li>
+ * <li>已同步的member要么被移除，要么score已大于窗口（同步期间又有投票），所以下一页仍然从上一页最后的score开始读取；</li>
+ * <li>窗口全部同步后，checkpoint = 窗口结束时间（只用于监控）。同步失败时，未移除的member下一次重新同步（`upsert`需要幂等）。</li>
+ * </ol>
+ * 备注：timestamp的score是投票时应用服务器的时间（lua执行前），可能小于已同步的位置（时钟偏差、投票请求的耗时大于`safetyMillis`）。
+ * 已同步的member都会被移除，所以窗口总是从`-inf`开始，不会遗漏这些member（否则永远不会被同步，`lagMillis`一直增长）。
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+// @Component
+@Slf4j
+public class VoteCountSyncEngine implements AutoCloseable {
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    public static final long DEFAULT_SAFETY_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private final VoteCache voteCache;
+    private final Consumer<List<VoteItem>> upsert;
+    private final int partitions;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("vote-count-sync-%d").setDaemon(true).build());
+
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private long safetyMillis = DEFAULT_SAFETY_MILLIS;
+
+    private volatile long lastSynced;
+    private volatile long lastDurationMillis;
+
+    /**
+     * @param upsert 批量写入DB（VoteItem: voteId、id、count）
+     * @param partitions 并行的分区数，同一个投票活动的投票项总是在同一个分区
+     */
+    public VoteCountSyncEngine(VoteCache voteCache, Consumer<List<VoteItem>> upsert, int partitions) {
+        Assert.isTrue(partitions > 0, "partitions must be greater than 0");
+
+        this.voteCache = voteCache;
+        this.upsert = upsert;
+        this.partitions = partitions;
+        this.executor = Executors.newFixedThreadPool(partitions,
+                new ThreadFactoryBuilder().setNameFormat("vote-count-sync-partition-%d").setDaemon(true).build());
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public void setSafetyMillis(long safetyMillis) {
+        this.safetyMillis = safetyMillis;
+    }
+
+    public VoteCountSyncEngine start(long periodMillis) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                syncOnce();
+                log.info("[vergilyn]sync vote-count >>>> {}", metrics());
+            } catch (Exception e) {
+                log.error("[vergilyn]sync vote-count error >>>> {}", e.getMessage(), e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * @return 同步的投票项数量
+     */
+    public synchronized long syncOnce() {
+        long begin = System.currentTimeMillis();
+        long windowEnd = begin - safetyMillis;
+
+        // 不从checkpoint开始：score小于checkpoint的member（时钟偏差）也需要同步
+        double min = Double.NEGATIVE_INFINITY;
+        long synced = 0;
+        Set<String> processed = Sets.newHashSet();
+        boolean complete = false;
+        while (true) {
+            List<Tuple<String, Double>> page = voteCache.rangeTimestamp(min, windowEnd, pageSize);
+            boolean last = page.size() < pageSize;
+
+            // 同步后未被移除的member（时钟偏差导致score仍在窗口内），本次不再重复同步
+            page.removeIf(tuple -> processed.contains(tuple.getFirst()));
+            if (page.isEmpty()) {
+                complete = last;
+                break;
+            }
+
+            synced += syncPage(page);
+            page.forEach(tuple -> processed.add(tuple.getFirst()));
+            min = page.get(page.size() - 1).getSecond();
+
+            if (last) {
+                complete = true;
+                break;
+            }
+        }
+
+        // 未读取完整个窗口时，只推进到已同步的位置
+        voteCache.setSyncCheckpoint(complete ? windowEnd : (long) min);
+
+        lastSynced = synced;
+        lastDurationMillis = System.currentTimeMillis() - begin;
+        return synced;
+    }
+
+    public Metrics metrics() {
+        long now = System.currentTimeMillis();
+        Double oldest = voteCache.oldestTimestamp();
+
+        return new Metrics(voteCache.getSyncCheckpoint(),
+                oldest == null ? 0 : Math.max(0, now - oldest.longValue()),
+                voteCache.countTimestamp(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY),
+                lastSynced, lastDurationMillis);
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        executor.shutdown();
+    }
+
+    private long syncPage(List<Tuple<String, Double>> page) {
+        Map<Integer, List<Tuple<String, Double>>> grouped = Maps.newHashMap();
+        List<Tuple<String, Double>> invalid = Lists.newArrayList();
+        for (Tuple<String, Double> tuple : page) {
+            long[] ids = VoteCache.parseMemberTimestamp(tuple.getFirst());
+            if (ids == null) {
+                invalid.add(tuple);
+                continue;
+            }
+
+            grouped.computeIfAbsent((int) Math.floorMod(ids[0], (long) partitions), k -> Lists.newArrayList()).add(tuple);
+        }
+
+        if (!invalid.isEmpty()) {
+            log.warn("[vergilyn]invalid vote:item:timestamp member >>>> {}", invalid.size());
+            voteCache.removeSyncedTimestamps(invalid);
+        }
+
+        List<CompletableFuture<Integer>> futures = grouped.values().stream()
+                .map(tuples -> CompletableFuture.supplyAsync(() -> syncPartition(tuples), executor))
+                .collect(Collectors.toList());
+
+        // 任意分区失败时抛出异常，不修改checkpoint
+        return futures.stream().mapToInt(CompletableFuture::join).sum();
+    }
+
+    private int syncPartition(List<Tuple<String, Double>> tuples) {
+        Map<String, Long> counts = voteCache.getCounts(tuples.stream().map(Tuple::getFirst).collect(Collectors.toList()));
+
+        List<VoteItem> items = Lists.newArrayListWithCapacity(counts.size());
+        counts.forEach((member, count) -> {
+            long[] ids = VoteCache.parseMemberTimestamp(member);
+
+            VoteItem item = new VoteItem();
+            item.setVoteId(ids[0]);
+            item.setId(ids[1]);
+            item.setCount(count);
+            items.add(item);
+        });
+
+        if (!items.isEmpty()) {
+            upsert.accept(items);
+        }
+
+        // 票数缓存已失效（投票活动已结束）的timestamp同样移除
+        voteCache.removeSyncedTimestamps(tuples);
+        return items.size();
+    }
+
+    @Value
+    public static class Metrics {
+        /**
+         * 已同步的最大得票时间
+         */
+        long checkpoint;
+
+        /**
+         * 最早未同步的得票时间 距离现在的毫秒数
+         */
+        long lagMillis;
+
+        /**
+         * 未同步的投票项数量
+         */
+        long backlog;
+
+        long lastSynced;
+        long lastDurationMillis;
+    }
+}
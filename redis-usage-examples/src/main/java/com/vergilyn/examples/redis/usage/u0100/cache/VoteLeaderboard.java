@@ -0,0 +1,155 @@
+package com.vergilyn.examples.redis.usage.u0100.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.vergilyn.examples.commons.domain.Tuple;
+
+import lombok.Value;
+import org.springframework.util.Assert;
+
+/**
+ * 投票结果排行榜（top-K、投票项排名、投票项前后的排名）。
+ * <p>
+ * 每个投票活动在本地保存一份快照（最多`maxItems`个投票项），快照超过`refreshMillis`后由后台线程刷新（每个投票活动同一时间只有一个线程刷新），
+ * 刷新期间仍然返回旧的快照。所以无论多少并发请求，每个投票活动每个刷新周期只有一次`ZREVRANGE WITHSCORES`。
+ * 超过`expireMillis`没有访问的快照会被移除。
+ * </p>
+ * 备注：排名是快照中的位置（票数相同时按redis中的顺序），可能比redis中的票数延迟`refreshMillis`。
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+// @Component
+public class VoteLeaderboard implements AutoCloseable {
+    public static final long DEFAULT_REFRESH_MILLIS = 1000;
+    public static final int DEFAULT_MAX_ITEMS = 1000;
+
+    private final VoteCache voteCache;
+    private final int maxItems;
+    private final ExecutorService refresher;
+
+    /**
+     * key: vote.id
+     */
+    private final LoadingCache<Long, Snapshot> snapshots;
+
+    public VoteLeaderboard(VoteCache voteCache) {
+        this(voteCache, DEFAULT_REFRESH_MILLIS, DEFAULT_MAX_ITEMS);
+    }
+
+    public VoteLeaderboard(VoteCache voteCache, long refreshMillis, int maxItems) {
+        Assert.isTrue(maxItems > 0, "maxItems must be greater than 0");
+
+        this.voteCache = voteCache;
+        this.maxItems = maxItems;
+        this.refresher = Executors.newFixedThreadPool(2,
+                new ThreadFactoryBuilder().setNameFormat("vote-leaderboard-refresher-%d").setDaemon(true).build());
+
+        this.snapshots = CacheBuilder.newBuilder()
+                .maximumSize(1_000)
+                .refreshAfterWrite(refreshMillis, TimeUnit.MILLISECONDS)
+                .expireAfterAccess(Math.max(refreshMillis * 60, TimeUnit.MINUTES.toMillis(1)), TimeUnit.MILLISECONDS)
+                .build(CacheLoader.asyncReloading(CacheLoader.from(this::load), refresher));
+    }
+
+    /**
+     * @return 按票数倒序
+     */
+    public List<Entry> top(Long voteId, int k) {
+        Snapshot snapshot = snapshots.getUnchecked(voteId);
+        return snapshot.range(0, k);
+    }
+
+    /**
+     * @return 排名（从1开始），不在快照中时返回null
+     */
+    public Integer rank(Long voteId, Long itemId) {
+        Integer index = snapshots.getUnchecked(voteId).indexes.get(itemId);
+        return index == null ? null : index + 1;
+    }
+
+    /**
+     * @param radius 前后各`radius`个投票项
+     * @return 包含`itemId`本身；不在快照中时返回空
+     */
+    public List<Entry> around(Long voteId, Long itemId, int radius) {
+        Snapshot snapshot = snapshots.getUnchecked(voteId);
+        Integer index = snapshot.indexes.get(itemId);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+
+        int from = Math.max(0, index - radius);
+        return snapshot.range(from, index + radius + 1 - from);
+    }
+
+    /**
+     * 投票活动修改（例如 删除投票项）后，立即移除快照。
+     */
+    public void invalidate(Long voteId) {
+        snapshots.invalidate(voteId);
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        refresher.shutdown();
+    }
+
+    private Snapshot load(Long voteId) {
+        return new Snapshot(voteCache.reverseRangeCount(voteId, maxItems));
+    }
+
+    private static class Snapshot {
+        private final List<Entry> entries;
+
+        /**
+         * key: item.id, value: entries的下标
+         */
+        private final Map<Long, Integer> indexes;
+
+        private Snapshot(List<Tuple<Long, Long>> counts) {
+            List<Entry> entries = Lists.newArrayListWithCapacity(counts.size());
+            Map<Long, Integer> indexes = Maps.newHashMapWithExpectedSize(counts.size());
+            for (int i = 0, len = counts.size(); i < len; i++) {
+                Tuple<Long, Long> tuple = counts.get(i);
+                entries.add(new Entry(i + 1, tuple.getFirst(), tuple.getSecond()));
+                indexes.put(tuple.getFirst(), i);
+            }
+
+            this.entries = Collections.unmodifiableList(entries);
+            this.indexes = indexes;
+        }
+
+        private List<Entry> range(int from, int count) {
+            if (from >= entries.size() || count <= 0) {
+                return Collections.emptyList();
+            }
+
+            return entries.subList(from, Math.min(entries.size(), from + count));
+        }
+    }
+
+    @Value
+    public static class Entry {
+        /**
+         * 从1开始
+         */
+        int rank;
+        long itemId;
+        long count;
+    }
+}
@@ -0,0 +1,132 @@
+package com.vergilyn.examples.redis.usage.u0100.cache;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.vergilyn.examples.redis.usage.u0100.entity.VoteLog;
+
+/**
+ * `VoteLog`的二进制编码，代替`JSON.toJSONString(log)`。
+ * <pre>
+ * [version: 1 byte][flags: 1 byte][id: varint][voteId: varint][voteItemId: varint][userId: varint][voteTime: 8 bytes, epoch-millis]
+ * </pre>
+ * <ol>
+ * <li>version: {@link #VERSION_BINARY}；JSON的第一个字节总是`{`，所以{@link #decode(byte[])}可以同时解析两种格式（灰度期间共存）；</li>
+ * <li>flags: 第i位表示第i个字段不为null，为null的字段不写入；</li>
+ * <li>varint: 无符号，每个字节7位（LEB128），id必须 >= 0。</li>
+ * </ol>
+ * 编码使用thread-local的buffer，解码直接读取byte[]（不创建中间对象）。
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+public abstract class VoteLogCodec {
+    public static final byte VERSION_BINARY = 0x01;
+
+    /**
+     * 2 + 4 * 10(varint) + 8
+     */
+    private static final int MAX_LENGTH = 50;
+
+    private static final int FLAG_ID = 1;
+    private static final int FLAG_VOTE_ID = 1 << 1;
+    private static final int FLAG_VOTE_ITEM_ID = 1 << 2;
+    private static final int FLAG_USER_ID = 1 << 3;
+    private static final int FLAG_VOTE_TIME = 1 << 4;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_LENGTH));
+
+    public static byte[] encode(VoteLog log) {
+        ByteBuffer buffer = BUFFER.get();
+        buffer.clear();
+
+        int flags = (log.getId() != null ? FLAG_ID : 0)
+                | (log.getVoteId() != null ? FLAG_VOTE_ID : 0)
+                | (log.getVoteItemId() != null ? FLAG_VOTE_ITEM_ID : 0)
+                | (log.getUserId() != null ? FLAG_USER_ID : 0)
+                | (log.getVoteTime() != null ? FLAG_VOTE_TIME : 0);
+
+        buffer.put(VERSION_BINARY);
+        buffer.put((byte) flags);
+        putVarLong(buffer, log.getId());
+        putVarLong(buffer, log.getVoteId());
+        putVarLong(buffer, log.getVoteItemId());
+        putVarLong(buffer, log.getUserId());
+        if (log.getVoteTime() != null) {
+            buffer.putLong(log.getVoteTime().getTime());
+        }
+
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * 解析二进制或JSON格式。
+     *
+     * @return 格式错误时返回null
+     */
+    public static VoteLog decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        if (bytes[0] == '{') {
+            try {
+                return JSON.parseObject(new String(bytes, StandardCharsets.UTF_8), VoteLog.class);
+            } catch (JSONException e) {
+                return null;
+            }
+        }
+
+        if (bytes[0] != VERSION_BINARY || bytes.length < 2) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+            int flags = bytes[1];
+
+            VoteLog log = new VoteLog();
+            log.setId((flags & FLAG_ID) != 0 ? getVarLong(buffer) : null);
+            log.setVoteId((flags & FLAG_VOTE_ID) != 0 ? getVarLong(buffer) : null);
+            log.setVoteItemId((flags & FLAG_VOTE_ITEM_ID) != 0 ? getVarLong(buffer) : null);
+            log.setUserId((flags & FLAG_USER_ID) != 0 ? getVarLong(buffer) : null);
+            log.setVoteTime((flags & FLAG_VOTE_TIME) != 0 ? new Date(buffer.getLong()) : null);
+            return log;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void putVarLong(ByteBuffer buffer, Long value) {
+        if (value == null) {
+            return;
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("varint must not be negative: " + value);
+        }
+
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+}
@@ -0,0 +1,266 @@
+package com.vergilyn.examples.redis.usage.u0100.cache;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import com.google.common.collect.Lists;
+import com.vergilyn.examples.redis.usage.u0100.entity.VoteLog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.Assert;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntry;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.StreamPendingEntry;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * 同步投票记录（{@link VoteCache.LogMode#STREAM}）到DB，代替`LPUSH/RPOP`：
+ * <ol>
+ * <li>`XREADGROUP`批量读取，`batchWriter`批量写入DB后`XACK`；写入失败不ACK，下一次从自己的pending（ID 0）重新读取；</li>
+ * <li>每隔`claimIdleMillis`检查pending，空闲超过`claimIdleMillis`的消息（例如 其它worker已宕机）通过`XCLAIM`转移给自己；</li>
+ * <li>同一个group可以有多个worker（`consumer`不同），消息只会分配给其中一个，所以吞吐可以横向扩展。</li>
+ * </ol>
+ * 备注：至少一次（at-least-once），`batchWriter`需要幂等（例如 以stream-id或log.id去重）。
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+// @Component
+@Slf4j
+public class VoteLogStreamSyncWorker implements Runnable, AutoCloseable {
+    public static final String DEFAULT_GROUP = "vote-log-sync";
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final long DEFAULT_BLOCK_MILLIS = 2000;
+    public static final long DEFAULT_CLAIM_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String group;
+    private final String consumer;
+    private final Consumer<List<VoteLog>> batchWriter;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private long blockMillis = DEFAULT_BLOCK_MILLIS;
+    private long claimIdleMillis = DEFAULT_CLAIM_IDLE_MILLIS;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * true: 读取自己的pending（启动时，或写入DB失败后）
+     */
+    private boolean recovering = true;
+    private long lastClaimMillis;
+
+    /**
+     * @param consumer 同一个group中唯一，例如 `{hostname}-{pid}`。重启后使用相同的名称，可以直接读取自己的pending。
+     * @param batchWriter 批量写入DB
+     */
+    public VoteLogStreamSyncWorker(StringRedisTemplate redisTemplate, String group, String consumer,
+                                   Consumer<List<VoteLog>> batchWriter) {
+        Assert.hasText(group, "group must not be empty");
+        Assert.hasText(consumer, "consumer must not be empty");
+
+        this.redisTemplate = redisTemplate;
+        this.group = group;
+        this.consumer = consumer;
+        this.batchWriter = batchWriter;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setBlockMillis(long blockMillis) {
+        this.blockMillis = blockMillis;
+    }
+
+    public void setClaimIdleMillis(long claimIdleMillis) {
+        this.claimIdleMillis = claimIdleMillis;
+    }
+
+    public synchronized VoteLogStreamSyncWorker start() {
+        Assert.state(thread == null, "worker already started");
+
+        createGroup();
+        running = true;
+        thread = new Thread(this, "vote-log-sync-" + consumer);
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                syncOnce();
+            } catch (Exception e) {
+                log.error("[vergilyn]sync vote-log error >>>> consumer: {}, error: {}", consumer, e.getMessage(), e);
+                sleepQuietly(blockMillis);
+            }
+        }
+    }
+
+    /**
+     * @return 写入DB的log数量
+     */
+    public int syncOnce() {
+        int synced = 0;
+        if (System.currentTimeMillis() - lastClaimMillis >= claimIdleMillis) {
+            lastClaimMillis = System.currentTimeMillis();
+            synced += sync(claim());
+        }
+
+        // 自己的pending读完后，再读取新消息（BLOCK）
+        StreamEntryID offset = recovering ? new StreamEntryID() : StreamEntryID.UNRECEIVED_ENTRY;
+        List<StreamEntry> entries = read(offset, recovering ? 0 : blockMillis);
+        if (recovering && entries.isEmpty()) {
+            recovering = false;
+        }
+
+        return synced + sync(entries);
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        running = false;
+
+        Thread t = thread;
+        if (t != null) {
+            try {
+                t.join(blockMillis * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * `XGROUP CREATE key group 0 MKSTREAM`，已存在时忽略。
+     */
+    public void createGroup() {
+        try {
+            jedis(jedis -> jedis.xgroupCreate(VoteCache.K_F_STREAM_VOTE_ITEM_LOG, group, new StreamEntryID(), true));
+        } catch (Exception e) {
+            if (!isBusyGroup(e)) {
+                throw e;
+            }
+        }
+    }
+
+    private int sync(List<StreamEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        List<VoteLog> logs = Lists.newArrayListWithCapacity(entries.size());
+        for (StreamEntry entry : entries) {
+            VoteLog voteLog = VoteCache.parseStreamFields(entry.getFields());
+            if (voteLog == null) {
+                // 格式错误的消息直接ACK，否则会一直被重复处理
+                log.warn("[vergilyn]invalid vote-log >>>> id: {}, fields: {}", entry.getID(), entry.getFields());
+                continue;
+            }
+            logs.add(voteLog);
+        }
+
+        try {
+            if (!logs.isEmpty()) {
+                batchWriter.accept(logs);
+            }
+        } catch (RuntimeException e) {
+            recovering = true;
+            throw e;
+        }
+
+        StreamEntryID[] ids = entries.stream().map(StreamEntry::getID).toArray(StreamEntryID[]::new);
+        jedis(jedis -> jedis.xack(VoteCache.K_F_STREAM_VOTE_ITEM_LOG, group, ids));
+        return logs.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<StreamEntry> read(StreamEntryID offset, long block) {
+        List<Map.Entry<String, List<StreamEntry>>> result = jedis(jedis -> jedis.xreadGroup(group, consumer, batchSize, block, false,
+                new AbstractMap.SimpleImmutableEntry<>(VoteCache.K_F_STREAM_VOTE_ITEM_LOG, offset)));
+
+        if (result == null || result.isEmpty() || result.get(0).getValue() == null) {
+            return Collections.emptyList();
+        }
+
+        return ackTrimmed(result.get(0).getValue());
+    }
+
+    /**
+     * 转移其它consumer空闲超过`claimIdleMillis`的pending消息。
+     */
+    private List<StreamEntry> claim() {
+        List<StreamPendingEntry> pending = jedis(jedis -> jedis.xpending(VoteCache.K_F_STREAM_VOTE_ITEM_LOG, group,
+                null, null, batchSize, null));
+
+        StreamEntryID[] ids = pending.stream()
+                .filter(entry -> !consumer.equals(entry.getConsumerName()) && entry.getIdleTime() >= claimIdleMillis)
+                .map(StreamPendingEntry::getID)
+                .toArray(StreamEntryID[]::new);
+        if (ids.length == 0) {
+            return Collections.emptyList();
+        }
+
+        // XCLAIM会再次检查min-idle-time，所以多个worker同时claim时只有一个成功
+        List<StreamEntry> claimed = jedis(jedis -> jedis.xclaim(VoteCache.K_F_STREAM_VOTE_ITEM_LOG, group, consumer,
+                claimIdleMillis, 0, 0, false, ids));
+        if (!claimed.isEmpty()) {
+            log.info("[vergilyn]claim vote-log >>>> consumer: {}, count: {}", consumer, claimed.size());
+        }
+
+        return ackTrimmed(claimed);
+    }
+
+    /**
+     * vergilyn-comment, 2026-10-19 >>>> 读取pending（或XCLAIM）时，已被XTRIM（MAXLEN）删除的消息fields为null，
+     * 直接ACK，否则会一直停留在pending中。
+     */
+    private List<StreamEntry> ackTrimmed(List<StreamEntry> entries) {
+        StreamEntryID[] trimmed = entries.stream().filter(entry -> entry != null && entry.getFields() == null)
+                .map(StreamEntry::getID).toArray(StreamEntryID[]::new);
+        if (trimmed.length == 0) {
+            return entries;
+        }
+
+        log.warn("[vergilyn]vote-log trimmed before sync >>>> count: {}", trimmed.length);
+        jedis(jedis -> jedis.xack(VoteCache.K_F_STREAM_VOTE_ITEM_LOG, group, trimmed));
+        return entries.stream().filter(entry -> entry != null && entry.getFields() != null).collect(Collectors.toList());
+    }
+
+    private <T> T jedis(Function<Jedis, T> function) {
+        return redisTemplate.execute((RedisCallback<T>) connection -> function.apply((Jedis) connection.getNativeConnection()));
+    }
+
+    private static boolean isBusyGroup(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof JedisDataException && t.getMessage() != null && t.getMessage().startsWith("BUSYGROUP")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.vergilyn.examples.redis.usage.u0100.service;
 
 import java.util.Date;
+import java.util.List;
 
 import com.vergilyn.examples.redis.usage.u0100.entity.Vote;
 
@@ -12,4 +13,9 @@ public interface VoteService {
 
     Vote saveOrUpdate(Long id, String title, Date beginTime, Date endTime);
 
+    /**
+     * 批量修改投票活动（例如 后台批量调整结束时间）
+     */
+    List<Vote> saveOrUpdate(List<Vote> votes);
+
 }
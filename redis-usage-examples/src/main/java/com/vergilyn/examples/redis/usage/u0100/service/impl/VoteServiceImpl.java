@@ -1,6 +1,7 @@
 package com.vergilyn.examples.redis.usage.u0100.service.impl;
 
 import java.util.Date;
+import java.util.List;
 
 import com.vergilyn.examples.redis.usage.u0100.cache.VoteCache;
 import com.vergilyn.examples.redis.usage.u0100.entity.Vote;
@@ -26,4 +27,12 @@ public class VoteServiceImpl implements VoteService {
         voteCache.adjustCountExpire(vote);
         return vote;
     }
+
+    @Override
+    public List<Vote> saveOrUpdate(List<Vote> votes) {
+        // votes = voteRepository.saveAll(votes);  // 写入数据库
+
+        voteCache.adjustCountExpire(votes);
+        return votes;
+    }
 }
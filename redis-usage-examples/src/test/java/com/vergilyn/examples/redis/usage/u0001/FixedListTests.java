@@ -1,7 +1,13 @@
 package com.vergilyn.examples.redis.usage.u0001;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.vergilyn.examples.redis.usage.AbstractRedisClientTest;
 
@@ -11,6 +17,7 @@ import org.junit.jupiter.api.TestInstance;
 import org.testng.collections.Lists;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class FixedListTests extends AbstractRedisClientTest {
@@ -35,4 +42,84 @@ public class FixedListTests extends AbstractRedisClientTest {
 
 		System.out.printf(" >>>> llen: %d, lrange: %s", llen, lrange);
 	}
+
+	@Test
+	public void bulk(){
+		List<String> lpushArgs = IntStream.rangeClosed(3, 10_000).mapToObj(String::valueOf).collect(Collectors.toList());
+		List<Integer> progress = Lists.newArrayList();
+
+		Long llen = FixedListOperation.bulkExecute(_stringRedisTemplate, key, 1000, lpushArgs, 100,
+				(imported, total) -> {
+					assertThat(total).isEqualTo(1000);
+					progress.add(imported);
+				});
+		assertThat(llen).isEqualTo(1000L);
+		assertThat(progress).containsExactly(1000);
+
+		List<String> lrange = _stringRedisTemplate.boundListOps(key).range(0, 2);
+		assertThat(lrange).containsExactly("10000", "9999", "9998");
+		assertThat(_stringRedisTemplate.boundListOps(key).index(-1)).isEqualTo("9001");
+	}
+
+	@Test
+	public void ringBuffer(){
+		String ringKey = key + ":ring";
+		_stringRedisTemplate.delete(ringKey);
+		RingBufferFixedListStrategy strategy = new RingBufferFixedListStrategy(4);
+
+		FixedListOperation.execute(_stringRedisTemplate, ringKey, fixedSize, Lists.newArrayList("1", "2"), strategy);
+		Long size = FixedListOperation.execute(_stringRedisTemplate, ringKey, fixedSize, Arrays.asList(lpushArgs), strategy);
+		assertThat(size).isEqualTo(5L);
+
+		// 与 LIST 的结果相同
+		assertThat(FixedListOperation.range(_stringRedisTemplate, ringKey, 0, -1, strategy))
+				.containsExactly("6", "5", "4", "3", "2");
+		assertThat(FixedListOperation.range(_stringRedisTemplate, ringKey, 1, 2, strategy))
+				.containsExactly("5", "4");
+		assertThat(FixedListOperation.range(_stringRedisTemplate, ringKey, -2, -1, strategy))
+				.containsExactly("3", "2");
+
+		// 超过 fixed-size，只保留最新的元素
+		FixedListOperation.execute(_stringRedisTemplate, ringKey, fixedSize, Lists.newArrayList("a", "bb", "ccc", "dddd", "e", "f"), strategy);
+		assertThat(FixedListOperation.range(_stringRedisTemplate, ringKey, 0, -1, strategy))
+				.containsExactly("f", "e", "dddd", "ccc", "bb");
+		assertThat(_stringRedisTemplate.opsForValue().size(ringKey)).isEqualTo(16L + fixedSize * 4);
+
+		assertThatThrownBy(() -> FixedListOperation.execute(_stringRedisTemplate, ringKey, fixedSize, Lists.newArrayList("12345"), strategy))
+				.hasMessageContaining("slot-width");
+	}
+
+	@Test
+	public void batch(){
+		Map<String, Integer> keyFixedSizes = new HashMap<>();
+		for (int i = 0; i < 500; i++){
+			keyFixedSizes.put(key + ":follower:" + i, i % 2 == 0 ? 2 : 3);
+		}
+		_stringRedisTemplate.delete(keyFixedSizes.keySet());
+
+		// 已有数据的key
+		String first = key + ":follower:0";
+		_stringRedisTemplate.boundListOps(first).leftPushAll("1", "2");
+
+		int parallelism = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			Map<String, Long> results = FixedListOperation.executeBatch(_stringRedisTemplate, keyFixedSizes, Lists.newArrayList("3", "4"), executor, parallelism);
+
+			assertThat(results).hasSize(500);
+			keyFixedSizes.forEach((k, fixedSize) -> assertThat(results.get(k)).isEqualTo((long) Math.min(fixedSize, 2)));
+			assertThat(_stringRedisTemplate.boundListOps(first).range(0, -1)).containsExactly("4", "3");
+
+			// 与单个key的结果相同
+			Map<String, Long> again = FixedListOperation.executeBatch(_stringRedisTemplate, keyFixedSizes, Lists.newArrayList("5"), executor, parallelism);
+			keyFixedSizes.forEach((k, fixedSize) -> assertThat(again.get(k)).isEqualTo((long) fixedSize));
+			assertThat(_stringRedisTemplate.boundListOps(key + ":follower:1").range(0, -1)).containsExactly("5", "4", "3");
+
+			assertThatThrownBy(() -> FixedListOperation.executeBatch(_stringRedisTemplate, keyFixedSizes, Lists.newArrayList("6"), executor, 0))
+					.isInstanceOf(IllegalArgumentException.class);
+		} finally {
+			executor.shutdown();
+			_stringRedisTemplate.delete(keyFixedSizes.keySet());
+		}
+	}
 }
@@ -0,0 +1,76 @@
+package com.vergilyn.examples.redis.usage.u0002;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import com.google.common.collect.Lists;
+import com.vergilyn.examples.redis.usage.AbstractRedisClientTest;
+import com.vergilyn.examples.redis.usage.u0002.cache.impl.AbstractRecentlyUseCache;
+import com.vergilyn.examples.redis.usage.u0002.cache.impl.ExpiredMemberSweeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache.SourceTypeEnum.VIDEO;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class ExpiredMemberSweeperTests extends AbstractRedisClientTest {
+	private final String key1 = AbstractRecentlyUseCache.key(VIDEO, "test-sweeper-1");
+	private final String key2 = AbstractRecentlyUseCache.key(VIDEO, "test-sweeper-2");
+
+	private final ExpiredMemberSweeper _sweeper = new ExpiredMemberSweeper(VIDEO, 60);
+
+	@BeforeEach
+	public void beforeEach(){
+		_stringRedisTemplate.delete(Lists.newArrayList(key1, key2, _sweeper.trackerKey()));
+	}
+
+	@AfterEach
+	public void afterEach(){
+		_sweeper.close();
+	}
+
+	@Test
+	public void sweep(){
+		LocalDateTime now = LocalDateTime.now().withNano(0);
+		double expired = AbstractRecentlyUseCache.toScore(now.minusSeconds(120));
+		double fresh = AbstractRecentlyUseCache.toScore(now.minusSeconds(10));
+
+		_stringRedisTemplate.opsForZSet().add(key1, "expired", expired);
+		_stringRedisTemplate.opsForZSet().add(key1, "fresh", fresh);
+		_stringRedisTemplate.opsForZSet().add(key2, "expired", expired);
+
+		_sweeper.touch(key1);
+		_sweeper.touch(key2);
+
+		// 刚写入，还未到期
+		assertThat(_sweeper.sweep()).isEqualTo(0);
+		assertThat(_stringRedisTemplate.opsForZSet().zCard(_sweeper.trackerKey())).isEqualTo(2L);
+
+		// 模拟到期
+		_stringRedisTemplate.opsForZSet().add(_sweeper.trackerKey(), key1, 0);
+		_stringRedisTemplate.opsForZSet().add(_sweeper.trackerKey(), key2, 0);
+		assertThat(_sweeper.sweep()).isEqualTo(2);
+
+		assertThat(_stringRedisTemplate.opsForZSet().range(key1, 0, -1)).containsExactly("fresh");
+		assertThat(_stringRedisTemplate.hasKey(key2)).isFalse();
+
+		// key1: 下一次到期时间是"fresh"的过期时间；key2: 已经为空，不再跟踪
+		Double nextExpireAt = _stringRedisTemplate.opsForZSet().score(_sweeper.trackerKey(), key1);
+		long expected = now.minusSeconds(10).plusSeconds(60 + 1).atZone(ZoneId.systemDefault()).toEpochSecond();
+		assertThat(nextExpireAt).isEqualTo((double) expected);
+		assertThat(_stringRedisTemplate.opsForZSet().score(_sweeper.trackerKey(), key2)).isNull();
+	}
+
+	@Test
+	public void score(){
+		LocalDateTime now = LocalDateTime.now().withNano(0);
+		assertThat(AbstractRecentlyUseCache.parseScore(AbstractRecentlyUseCache.toScore(now))).isEqualTo(now);
+	}
+}
@@ -0,0 +1,81 @@
+package com.vergilyn.examples.redis.usage.u0002;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.vergilyn.examples.commons.domain.Tuple;
+import com.vergilyn.examples.redis.usage.AbstractRedisClientTest;
+import com.vergilyn.examples.redis.usage.u0002.cache.impl.AbstractRecentlyUseCache;
+import com.vergilyn.examples.redis.usage.u0002.cache.impl.MergedRecentlyUseFeed;
+import com.vergilyn.examples.redis.usage.u0002.cache.impl.MergedRecentlyUseFeed.FeedItem;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache.SourceTypeEnum.IMAGE;
+import static com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache.SourceTypeEnum.VIDEO;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class MergedRecentlyUseFeedTests extends AbstractRedisClientTest {
+	private final String userId = "test-merged-feed";
+	private final String imageKey = AbstractRecentlyUseCache.key(IMAGE, userId);
+	private final String videoKey = AbstractRecentlyUseCache.key(VIDEO, userId);
+
+	private final MergedRecentlyUseFeed _feed = new MergedRecentlyUseFeed(IMAGE, VIDEO);
+
+	@BeforeEach
+	public void beforeEach(){
+		_stringRedisTemplate.delete(Lists.newArrayList(imageKey, videoKey));
+
+		_stringRedisTemplate.opsForZSet().add(imageKey, "i1", 20261019100001D);
+		_stringRedisTemplate.opsForZSet().add(imageKey, "i2", 20261019100003D);
+		_stringRedisTemplate.opsForZSet().add(imageKey, "i3", 20261019100003D);
+		_stringRedisTemplate.opsForZSet().add(imageKey, "i4", 20261019100006D);
+
+		_stringRedisTemplate.opsForZSet().add(videoKey, "v1", 20261019100002D);
+		_stringRedisTemplate.opsForZSet().add(videoKey, "v2", 20261019100003D);
+		_stringRedisTemplate.opsForZSet().add(videoKey, "v3", 20261019100005D);
+	}
+
+	@Test
+	public void page(){
+		List<String> expected = Lists.newArrayList("IMAGE:i4", "VIDEO:v3", "IMAGE:i3", "IMAGE:i2", "VIDEO:v2", "VIDEO:v1", "IMAGE:i1");
+
+		Tuple<String, List<FeedItem>> all = _feed.list(userId, null, 10);
+		assertThat(format(all.getSecond())).containsExactlyElementsOf(expected);
+		assertThat(all.getFirst()).isNull();
+
+		// 每页2条，分页的结果与一次全部获取相同（包括score相同的跨类型member）
+		List<String> actual = Lists.newArrayList();
+		String cursor = null;
+		do {
+			Tuple<String, List<FeedItem>> page = _feed.list(userId, cursor, 2);
+			actual.addAll(format(page.getSecond()));
+			cursor = page.getFirst();
+		}while (cursor != null);
+
+		assertThat(actual).containsExactlyElementsOf(expected);
+	}
+
+	@Test
+	public void keyset(){
+		Tuple<String, List<FeedItem>> first = _feed.list(userId, null, 3);
+		assertThat(format(first.getSecond())).containsExactly("IMAGE:i4", "VIDEO:v3", "IMAGE:i3");
+
+		// 翻页期间新增的"最近使用"不会导致下一页重复
+		_stringRedisTemplate.opsForZSet().add(videoKey, "v4", 20261019100009D);
+
+		Tuple<String, List<FeedItem>> second = _feed.list(userId, first.getFirst(), 3);
+		assertThat(format(second.getSecond())).containsExactly("IMAGE:i2", "VIDEO:v2", "VIDEO:v1");
+	}
+
+	private List<String> format(List<FeedItem> items){
+		return items.stream().map(item -> item.getSourceType().name() + ":" + item.getMember()).collect(Collectors.toList());
+	}
+}
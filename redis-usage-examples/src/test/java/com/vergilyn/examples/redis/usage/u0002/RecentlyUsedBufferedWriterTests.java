@@ -0,0 +1,108 @@
+package com.vergilyn.examples.redis.usage.u0002;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import com.google.common.collect.Lists;
+import com.vergilyn.examples.redis.usage.AbstractRedisClientTest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class RecentlyUsedBufferedWriterTests extends AbstractRedisClientTest {
+	private final String key1 = "test-recently-used-buffered:409839163";
+	private final String key2 = "test-recently-used-buffered:409839164";
+	private final int fixedSize = 3;
+	private final int expiredSecond = 3000;
+
+	private RecentlyUsedBufferedWriter _writer;
+
+	@BeforeEach
+	public void beforeEach(){
+		_stringRedisTemplate.delete(Lists.newArrayList(key1, key2));
+
+		// linger足够长，由测试手动flush
+		_writer = new RecentlyUsedBufferedWriter(_stringRedisTemplate, 60_000, 10_000, 1);
+	}
+
+	@AfterEach
+	public void afterEach(){
+		_writer.close();
+	}
+
+	@Test
+	public void coalesce(){
+		_writer.add(key1, fixedSize, expiredSecond, 1001, Lists.newArrayList("1", "2"));
+		_writer.add(key1, fixedSize, expiredSecond, 1002, Lists.newArrayList("3", "1"));
+		_writer.add(key2, fixedSize, expiredSecond, 1003, Lists.newArrayList("1"));
+		// 乱序到达的旧score不会覆盖新score
+		_writer.add(key1, fixedSize, expiredSecond, 1000, Lists.newArrayList("3", "4"));
+
+		assertThat(_writer.getBufferedMembers()).isEqualTo(5);
+		assertThat(_stringRedisTemplate.hasKey(key1)).isFalse();
+
+		_writer.flush();
+		assertThat(_writer.getBufferedMembers()).isEqualTo(0);
+
+		Set<TypedTuple<String>> zrange1 = _stringRedisTemplate.boundZSetOps(key1).reverseRangeWithScores(0, -1);
+		assertThat(zrange1.stream().map(TypedTuple::getValue)).containsExactly("3", "1", "2");
+		assertThat(zrange1.stream().map(TypedTuple::getScore)).containsExactly(1002D, 1002D, 1001D);
+
+		assertThat(_stringRedisTemplate.boundZSetOps(key2).range(0, -1)).containsExactly("1");
+		assertThat(_stringRedisTemplate.getExpire(key2)).isGreaterThan(0L);
+	}
+
+	@Test
+	public void close(){
+		_writer.add(key1, fixedSize, expiredSecond, 1001, Lists.newArrayList("1"));
+		_writer.close();
+
+		assertThat(_stringRedisTemplate.boundZSetOps(key1).range(0, -1)).containsExactly("1");
+		assertThatThrownBy(() -> _writer.add(key1, fixedSize, expiredSecond, 1002, Lists.newArrayList("2")))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void concurrentClose() throws Exception {
+		ConcurrentLinkedQueue<String> accepted = new ConcurrentLinkedQueue<>();
+		CountDownLatch started = new CountDownLatch(4);
+
+		List<CompletableFuture<Void>> adders = Lists.newArrayList();
+		for (int t = 0; t < 4; t++){
+			int thread = t;
+			adders.add(CompletableFuture.runAsync(() -> {
+				started.countDown();
+				for (int i = 0; ; i++){
+					String member = thread + "-" + i;
+					try {
+						_writer.add(key1, 100_000, expiredSecond, i, Lists.newArrayList(member));
+					}catch (IllegalStateException e){
+						return;
+					}
+					accepted.add(member);
+				}
+			}));
+		}
+
+		started.await();
+		Thread.sleep(20);
+		_writer.close();
+		CompletableFuture.allOf(adders.toArray(new CompletableFuture[0])).join();
+
+		// close之前成功add的member都已写入redis
+		assertThat(_stringRedisTemplate.boundZSetOps(key1).size()).isEqualTo(accepted.size());
+	}
+}
@@ -0,0 +1,69 @@
+package com.vergilyn.examples.redis.usage.u0002;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.google.common.collect.Maps;
+import com.vergilyn.examples.redis.usage.AbstractRedisClientTest;
+import com.vergilyn.examples.redis.usage.u0002.cache.impl.AbstractRecentlyUseCache;
+import com.vergilyn.examples.redis.usage.u0002.cache.impl.ImageRecentlyUseCacheImpl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache.SourceTypeEnum.IMAGE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class RecentlyUsedBulkWriterTests extends AbstractRedisClientTest {
+	private final int users = 1000;
+	private final ImageRecentlyUseCacheImpl _cache = new ImageRecentlyUseCacheImpl(3, 3000);
+	private final RecentlyUsedBulkWriter _writer = new RecentlyUsedBulkWriter(_stringRedisTemplate, 4, 100);
+
+	@BeforeEach
+	public void beforeEach(){
+		_stringRedisTemplate.delete(userIds().stream().map(userId -> AbstractRecentlyUseCache.key(IMAGE, userId)).collect(Collectors.toList()));
+		_cache.setBulkWriter(_writer);
+	}
+
+	@AfterEach
+	public void afterEach(){
+		_writer.close();
+	}
+
+	@Test
+	public void addAll(){
+		LocalDateTime now = LocalDateTime.now().withNano(0);
+
+		Map<String, Map<String, LocalDateTime>> userMembers = Maps.newHashMap();
+		for (String userId : userIds()){
+			Map<String, LocalDateTime> members = Maps.newHashMap();
+			for (int i = 1; i <= 5; i++){
+				members.put(String.valueOf(10 + i), now.minusMinutes(10 - i));
+			}
+			userMembers.put(userId, members);
+		}
+		userMembers.put("test-bulk-writer-empty", Maps.newHashMap());
+
+		Map<String, Boolean> results = _cache.addAll(userMembers);
+
+		assertThat(results).hasSize(users + 1);
+		assertThat(results.values()).containsOnly(true);
+
+		for (String userId : userIds()){
+			assertThat(_cache.getAll(AbstractRecentlyUseCache.key(IMAGE, userId))).containsExactly("15", "14", "13");
+		}
+	}
+
+	private List<String> userIds(){
+		return IntStream.range(0, users).mapToObj(i -> "test-bulk-writer-" + i).collect(Collectors.toList());
+	}
+}
@@ -1,10 +1,12 @@
 package com.vergilyn.examples.redis.usage.u0002;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.vergilyn.examples.redis.usage.AbstractRedisClientTest;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -98,6 +100,30 @@ public class RecentlyUsedTests extends AbstractRedisClientTest {
 				.containsExactlyElementsOf(Lists.newArrayList("9", "4", "8", "7", "6"));
 	}
 
+	@Test
+	public void bulk(){
+		RecentlyUsedOperation.execute(_stringRedisTemplate, key, fixedSize, expiredSecond, 99999D, Lists.newArrayList("old"));
+
+		// 大于 lua `unpack` 的栈限制
+		Map<String, Double> memberScores = Maps.newLinkedHashMap();
+		for (int i = 1; i <= 20_000; i++){
+			memberScores.put("m" + i, (double) i);
+		}
+
+		List<Integer> progress = Lists.newArrayList();
+		Boolean result = RecentlyUsedOperation.bulkExecute(_stringRedisTemplate, key, 2_000, expiredSecond, memberScores, 100,
+				(imported, total) -> {
+					assertThat(total).isEqualTo(2_000);
+					progress.add(imported);
+				});
+		assertThat(result).isTrue();
+		assertThat(progress).containsExactly(1_000, 2_000);
+
+		assertThat(_stringRedisTemplate.boundZSetOps(key).zCard()).isEqualTo(2_000L);
+		assertThat(_stringRedisTemplate.boundZSetOps(key).reverseRange(0, 2)).containsExactly("old", "m20000", "m19999");
+		assertThat(_stringRedisTemplate.getExpire(key)).isGreaterThan(0L);
+	}
+
 	private List<String> args(String score, List<String> members){
 		List<String> args = Lists.newArrayListWithCapacity(_params.size() + 1 + members.size());
 		args.add(score);
@@ -0,0 +1,80 @@
+package com.vergilyn.examples.redis.usage.u0002;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.google.common.collect.Lists;
+import com.vergilyn.examples.redis.usage.AbstractRedisClientTest;
+import com.vergilyn.examples.redis.usage.u0002.cache.data.ImageRepositories;
+import com.vergilyn.examples.redis.usage.u0002.cache.source.SourceEntityCache;
+import com.vergilyn.examples.redis.usage.u0002.entity.SourceImageEntity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache.SourceTypeEnum.IMAGE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class SourceEntityCacheTests extends AbstractRedisClientTest {
+	private final AtomicInteger _loadTimes = new AtomicInteger(0);
+	private final Function<List<Integer>, List<SourceImageEntity>> _loader = ids -> {
+		_loadTimes.incrementAndGet();
+		return ImageRepositories.listByIds(ids);
+	};
+
+	private SourceEntityCache<Integer, SourceImageEntity> _cache;
+
+	@BeforeEach
+	public void beforeEach(){
+		_cache = new SourceEntityCache<>(IMAGE, SourceImageEntity.class, 60);
+		_stringRedisTemplate.delete(Lists.newArrayList(_cache.key(11), _cache.key(12), _cache.key(19), _cache.key(99)));
+		_loadTimes.set(0);
+	}
+
+	@Test
+	public void hydrate(){
+		// 19: 逻辑删除；99: DB不存在
+		List<Integer> ids = Lists.newArrayList(12, 19, 11, 99);
+
+		List<SourceImageEntity> first = _cache.listByIds(ids, _loader);
+		assertThat(first.stream().map(SourceImageEntity::getId)).containsExactly(12, 11);
+		assertThat(_loadTimes.get()).isEqualTo(1);
+
+		// L1
+		List<SourceImageEntity> second = _cache.listByIds(ids, _loader);
+		assertThat(second.stream().map(SourceImageEntity::getId)).containsExactly(12, 11);
+		assertThat(_loadTimes.get()).isEqualTo(1);
+
+		// L2: 其它进程（新的L1）
+		SourceEntityCache<Integer, SourceImageEntity> other = new SourceEntityCache<>(IMAGE, SourceImageEntity.class, 60);
+		List<SourceImageEntity> third = other.listByIds(ids, _loader);
+		assertThat(third.stream().map(SourceImageEntity::getTitle)).containsExactly("IMAGE-0012", "IMAGE-0011");
+		assertThat(_loadTimes.get()).isEqualTo(1);
+
+		// 每个资源各自失效
+		assertThat(_stringRedisTemplate.getExpire(_cache.key(99))).isBetween(1L, 60L);
+	}
+
+	@Test
+	public void invalidate(){
+		List<Integer> ids = Lists.newArrayList(12, 11);
+		_cache.listByIds(ids, _loader);
+
+		_cache.invalidate(12);
+
+		List<SourceImageEntity> local = _cache.listByIds(ids, _loader);
+		assertThat(local.stream().map(SourceImageEntity::getId)).containsExactly(11);
+
+		SourceEntityCache<Integer, SourceImageEntity> other = new SourceEntityCache<>(IMAGE, SourceImageEntity.class, 60);
+		List<SourceImageEntity> remote = other.listByIds(ids, _loader);
+		assertThat(remote.stream().map(SourceImageEntity::getId)).containsExactly(11);
+
+		assertThat(_loadTimes.get()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,70 @@
+package com.vergilyn.examples.redis.usage.u0002;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.vergilyn.examples.commons.domain.Tuple;
+import com.vergilyn.examples.redis.usage.AbstractRedisClientTest;
+import com.vergilyn.examples.redis.usage.u0002.cache.trending.TrendingSourceIndex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.vergilyn.examples.redis.usage.u0002.cache.RecentlyUseCache.SourceTypeEnum.VIDEO;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class TrendingSourceIndexTests extends AbstractRedisClientTest {
+	private final String key = "test-recently-used-trending:409839163";
+	private final long bucketSeconds = 60;
+
+	private TrendingSourceIndex _index;
+
+	@BeforeEach
+	public void beforeEach(){
+		_index = new TrendingSourceIndex(VIDEO, bucketSeconds, 3, 0.5, 60);
+
+		long now = System.currentTimeMillis() / 1000;
+		List<String> keys = Lists.newArrayList(key);
+		for (int i = 0; i < 4; i++){
+			keys.add(_index.bucketKey(now - i * bucketSeconds));
+		}
+		_stringRedisTemplate.delete(keys);
+	}
+
+	@Test
+	public void top(){
+		long now = System.currentTimeMillis() / 1000;
+
+		// 上一个时间段："1" 使用了3次（权重 0.5）
+		_stringRedisTemplate.opsForZSet().incrementScore(_index.bucketKey(now - bucketSeconds), "1", 3);
+		// 超出 buckets 的时间段不参与合并
+		_stringRedisTemplate.opsForZSet().incrementScore(_index.bucketKey(now - 3 * bucketSeconds), "9", 100);
+
+		// 当前时间段
+		Boolean result = RecentlyUsedOperation.executeWithTrending(_stringRedisTemplate, key, _index.currentBucketKey(),
+				5, 3000, 1001, _index.bucketExpiredSeconds(), Lists.newArrayList("1", "2"));
+		assertThat(result).isTrue();
+		RecentlyUsedOperation.executeWithTrending(_stringRedisTemplate, key, _index.currentBucketKey(),
+				5, 3000, 1002, _index.bucketExpiredSeconds(), Lists.newArrayList("2"));
+
+		assertThat(_stringRedisTemplate.opsForZSet().range(key, 0, -1)).containsExactly("1", "2");
+		assertThat(_stringRedisTemplate.getExpire(_index.currentBucketKey())).isGreaterThan(0L);
+
+		List<Tuple<String, Double>> top = _index.top(10);
+		assertThat(top.stream().map(Tuple::getFirst).collect(Collectors.toList())).containsExactly("1", "2");
+		assertThat(top.stream().map(Tuple::getSecond).collect(Collectors.toList())).containsExactly(2.5D, 2D);
+		assertThat(_index.top(0)).isEmpty();
+		assertThat(_index.top(-1)).isEmpty();
+
+		// 本地缓存
+		_index.increment(Lists.newArrayList("3", "3", "3"));
+		assertThat(_index.top(10)).isSameAs(top);
+		assertThat(new TrendingSourceIndex(VIDEO, bucketSeconds, 3, 0.5, 60).top(1).get(0).getFirst()).isEqualTo("3");
+	}
+}
@@ -0,0 +1,131 @@
+package com.vergilyn.examples.redis.usage.u0100;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.vergilyn.examples.redis.usage.AbstractRedisClientTest;
+import com.vergilyn.examples.redis.usage.u0100.cache.VoteCache;
+import com.vergilyn.examples.redis.usage.u0100.entity.Vote;
+import com.vergilyn.examples.redis.usage.u0100.entity.VoteItem;
+import com.vergilyn.examples.redis.usage.u0100.entity.VoteLog;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static com.vergilyn.examples.redis.usage.u0100.cache.VoteCache.ALREADY_VOTED;
+import static com.vergilyn.examples.redis.usage.u0100.cache.VoteCache.VOTER_BITMAP_SHARD_BITS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ *
+ * @author VergiLyn
+ * @date 2026-10-19
+ */
+public class VoteCacheTests extends AbstractRedisClientTest {
+    private final long voteId = 409839163L;
+    private final String voterSet = "vote:voter:{" + voteId + "}:set";
+    private final String voterBitmapShards = "vote:voter:{" + voteId + "}:bitmap";
+
+    private VoteCache _voteCache;
+    private Vote _vote;
+    private VoteItem _item;
+
+    @BeforeEach
+    public void beforeEach() {
+        _voteCache = new VoteCache();
+        ReflectionTestUtils.setField(_voteCache, "redisTemplate", _stringRedisTemplate);
+
+        _vote = new Vote(voteId, "vote-cache-tests", new Date(), DateUtils.addDays(new Date(), 1));
+        _item = new VoteItem();
+        _item.setId(1L);
+        _item.setVoteId(voteId);
+
+        deleteKeys();
+        _voteCache.adjustCountExpire(_vote);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        deleteKeys();
+    }
+
+    @Test
+    public void alreadyVoted() {
+        assertThat(_voteCache.incrCountOnce(_item, log(7L), (item, log) -> 10)).isEqualTo(11);
+        assertThat(_voteCache.incrCountOnce(_item, log(7L), (item, log) -> 10)).isEqualTo(ALREADY_VOTED);
+
+        assertThat(_voteCache.getCount(voteId, _item.getId())).isEqualTo(11L);
+        assertThat(_voteCache.hasVoted(voteId, 7L)).isTrue();
+        assertThat(_voteCache.hasVoted(voteId, 8L)).isFalse();
+        assertThat(_voteCache.countVoters(voteId)).isEqualTo(1);
+        assertThat(_stringRedisTemplate.getExpire(voterSet)).isGreaterThan(0L);
+    }
+
+    @Test
+    public void convertToBitmap() {
+        _voteCache.setVoterSetThreshold(2);
+
+        long[] userIds = { 1L, VOTER_BITMAP_SHARD_BITS + 2, 3L };
+        for (int i = 0; i < userIds.length; i++) {
+            assertThat(_voteCache.incrCountOnce(_item, log(userIds[i]), (item, log) -> 0)).isEqualTo(i + 1);
+        }
+
+        // 超过阈值后转换为bitmap
+        assertThat(_stringRedisTemplate.hasKey(voterSet)).isFalse();
+        assertThat(_stringRedisTemplate.opsForSet().members(voterBitmapShards)).containsExactlyInAnyOrder("0", "1");
+        assertThat(_stringRedisTemplate.getExpire(bitmapShard(1))).isGreaterThan(0L);
+
+        for (long userId : userIds) {
+            assertThat(_voteCache.hasVoted(voteId, userId)).isTrue();
+            assertThat(_voteCache.incrCountOnce(_item, log(userId), (item, log) -> 0)).isEqualTo(ALREADY_VOTED);
+        }
+
+        // bitmap中的新投票人
+        assertThat(_voteCache.incrCountOnce(_item, log(4L), (item, log) -> 0)).isEqualTo(4);
+        assertThat(_voteCache.incrCountOnce(_item, log(4L), (item, log) -> 0)).isEqualTo(ALREADY_VOTED);
+        assertThat(_voteCache.hasVoted(voteId, 5L)).isFalse();
+        assertThat(_voteCache.getCount(voteId, _item.getId())).isEqualTo(4L);
+        assertThat(_voteCache.countVoters(voteId)).isEqualTo(4);
+    }
+
+    @Test
+    public void adjustVoterExpire() {
+        _voteCache.setVoterSetThreshold(1);
+        _voteCache.incrCountOnce(_item, log(1L), (item, log) -> 0);
+        _voteCache.incrCountOnce(_item, log(VOTER_BITMAP_SHARD_BITS + 2), (item, log) -> 0);
+        assertThat(_stringRedisTemplate.opsForSet().members(voterBitmapShards)).containsExactlyInAnyOrder("0", "1");
+
+        // 延长结束时间后，只有分片0有新的投票
+        _vote.setEndTime(DateUtils.addDays(_vote.getEndTime(), 30));
+        _voteCache.adjustCountExpire(Lists.newArrayList(_vote));
+        _voteCache.incrCountOnce(_item, log(3L), (item, log) -> 0);
+
+        long expected = TimeUnit.DAYS.toSeconds(30 + 10);
+        for (String key : Lists.newArrayList(voterBitmapShards, bitmapShard(0), bitmapShard(1), "vote:voter:{" + voteId + "}:hll")) {
+            assertThat(_stringRedisTemplate.getExpire(key)).isGreaterThan(expected);
+        }
+    }
+
+    private VoteLog log(Long userId) {
+        VoteLog log = new VoteLog();
+        log.setVoteId(voteId);
+        log.setVoteItemId(_item.getId());
+        log.setUserId(userId);
+        log.setVoteTime(new Date());
+        return log;
+    }
+
+    private String bitmapShard(long shard) {
+        return voterBitmapShards + ":" + shard;
+    }
+
+    private void deleteKeys() {
+        _stringRedisTemplate.delete(Lists.newArrayList("vote:item:" + voteId, voterSet, voterBitmapShards,
+                bitmapShard(0), bitmapShard(1), "vote:voter:{" + voteId + "}:hll"));
+        _stringRedisTemplate.opsForZSet().remove("vote:item:timestamp", VoteCache.memberTimestamp(voteId, _item.getId()));
+    }
+}
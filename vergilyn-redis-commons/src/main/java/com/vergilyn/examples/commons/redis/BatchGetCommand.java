@@ -0,0 +1,139 @@
+package com.vergilyn.examples.commons.redis;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.apache.commons.lang3.StringUtils;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+/**
+ * {@linkplain JedisPipelineBatchGet}中每个key的读取命令 以及 结果的解码。
+ *
+ * @param <R> redis的返回值
+ * @param <T> 解码后的值
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public interface BatchGetCommand<R, T> {
+
+	Response<R> request(Pipeline pipeline, String key);
+
+	/**
+	 * @param raw 可能是null（例如 `GET`不存在的key）
+	 */
+	T decode(R raw);
+
+	static <R, T> BatchGetCommand<R, T> of(BiFunction<Pipeline, String, Response<R>> request, Function<R, T> decoder) {
+		return new BatchGetCommand<R, T>() {
+			@Override
+			public Response<R> request(Pipeline pipeline, String key) {
+				return request.apply(pipeline, key);
+			}
+
+			@Override
+			public T decode(R raw) {
+				return decoder.apply(raw);
+			}
+		};
+	}
+
+	/**
+	 * `GET key`
+	 */
+	static <T> BatchGetCommand<String, T> string(Function<String, T> decoder) {
+		return of(Pipeline::get, decoder);
+	}
+
+	/**
+	 * `HMGET key field [field ...]`
+	 *
+	 * @return key: field, value: 不存在的field为null
+	 */
+	static BatchGetCommand<List<String>, Map<String, String>> hash(String... fields) {
+		return of((pipeline, key) -> pipeline.hmget(key, fields), values -> {
+			Map<String, String> rs = Maps.newHashMapWithExpectedSize(fields.length);
+			for (int i = 0, len = fields.length; i < len; i++) {
+				rs.put(fields[i], values.get(i));
+			}
+			return rs;
+		});
+	}
+
+	/**
+	 * `HGETALL key`
+	 */
+	static BatchGetCommand<Map<String, String>, Map<String, String>> hashAll() {
+		return of(Pipeline::hgetAll, Function.identity());
+	}
+
+	/**
+	 * `LRANGE key start end`
+	 */
+	static <T> BatchGetCommand<List<String>, List<T>> listRange(long start, long end, Function<String, T> decoder) {
+		return of((pipeline, key) -> pipeline.lrange(key, start, end), values -> decodeAll(values, decoder));
+	}
+
+	/**
+	 * `SMEMBERS key`
+	 */
+	static <T> BatchGetCommand<Set<String>, List<T>> set(Function<String, T> decoder) {
+		return of(Pipeline::smembers, values -> decodeAll(values, decoder));
+	}
+
+	/**
+	 * `ZRANGE key start end`
+	 */
+	static <T> BatchGetCommand<Set<String>, List<T>> zsetRange(long start, long end, Function<String, T> decoder) {
+		return of((pipeline, key) -> pipeline.zrange(key, start, end), values -> decodeAll(values, decoder));
+	}
+
+	/**
+	 * 基本类型的包装类 或 String，其余按JSON解析；空字符串解析为null。
+	 * 不支持{@link Character Character.class}。
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Function<String, T> decoder(Class<T> clazz) {
+		return value -> {
+			if (StringUtils.isBlank(value)) {
+				return null;
+			}
+
+			if (Integer.class.equals(clazz)) {
+				return (T) Integer.valueOf(value);
+			} else if (Short.class.equals(clazz)) {
+				return (T) Short.valueOf(value);
+			} else if (Long.class.equals(clazz)) {
+				return (T) Long.valueOf(value);
+			} else if (Byte.class.equals(clazz)) {
+				return (T) Byte.valueOf(value);
+			} else if (Float.class.equals(clazz)) {
+				return (T) Float.valueOf(value);
+			} else if (Double.class.equals(clazz)) {
+				return (T) Double.valueOf(value);
+			} else if (String.class.equals(clazz)) {
+				return (T) value;
+			} else if (Boolean.class.equals(clazz)) {
+				return (T) Boolean.valueOf(value);
+			} else {
+				return JSON.parseObject(value, clazz);
+			}
+		};
+	}
+
+	static <T> List<T> decodeAll(Collection<String> values, Function<String, T> decoder) {
+		List<T> rs = Lists.newArrayListWithCapacity(values.size());
+		for (String value : values) {
+			rs.add(decoder.apply(value));
+		}
+		return rs;
+	}
+}
@@ -0,0 +1,230 @@
+package com.vergilyn.examples.commons.redis;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * 非阻塞的删除 big-key。
+ *
+ * <p>
+ *   `DEL`的时间复杂度是O(N)（N: 集合元素个数），删除big-key时会阻塞redis。
+ * <pre>
+ *   1. redis >= 4.0：`UNLINK`，由后台线程释放内存；
+ *   2. 否则按类型分批删除：ZREMRANGEBYRANK / HSCAN+HDEL / SSCAN+SREM / LTRIM，每批`chunkSize`个元素，
+ *      集合为空时redis会自动删除key。
+ * </pre>
+ *
+ * <p>
+ *   {@linkplain #purge(String)} 通过`SCAN MATCH pattern`批量删除（例如 清理所有用户的数据），
+ *   每条删除命令（UNLINK 或 每一批）都需要获取{@linkplain RateLimiter}的1个permit，避免影响其它业务。
+ * </p>
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+@Slf4j
+public class BigKeyDeleter {
+	public static final int DEFAULT_CHUNK_SIZE = 500;
+	public static final double DEFAULT_PERMITS_PER_SECOND = 1000;
+
+	private static final RedisSerializer<String> STRING_SERIALIZER = RedisSerializer.string();
+
+	private final RedisOperations<String, ?> redisOperations;
+	private final int chunkSize;
+	private final RateLimiter rateLimiter;
+
+	/**
+	 * null: 未检测
+	 */
+	private volatile Boolean unlinkSupported;
+
+	public BigKeyDeleter(RedisOperations<String, ?> redisOperations) {
+		this(redisOperations, DEFAULT_CHUNK_SIZE, DEFAULT_PERMITS_PER_SECOND);
+	}
+
+	/**
+	 *
+	 * @param chunkSize 分批删除时，每批删除的元素个数；以及`SCAN COUNT`
+	 * @param permitsPerSecond {@linkplain #purge(String)} 每秒最多执行的删除命令数
+	 */
+	public BigKeyDeleter(RedisOperations<String, ?> redisOperations, int chunkSize, double permitsPerSecond) {
+		this.redisOperations = redisOperations;
+		this.chunkSize = chunkSize;
+		this.rateLimiter = RateLimiter.create(permitsPerSecond);
+	}
+
+	/**
+	 * @return true: key存在且已删除（UNLINK时，内存可能还未释放）
+	 */
+	public boolean delete(String key){
+		return redisOperations.execute((RedisCallback<Boolean>) connection -> delete(connection, key, false));
+	}
+
+	/**
+	 * 删除所有匹配`pattern`的key，受{@linkplain RateLimiter}限制（会阻塞当前线程）。
+	 *
+	 * @param pattern `SCAN MATCH`, 例如 `user:praise:*`
+	 * @return 删除的key数量
+	 */
+	public long purge(String pattern){
+		AtomicLong deleted = new AtomicLong(0);
+
+		redisOperations.execute((RedisCallback<Void>) connection -> {
+			ScanOptions options = ScanOptions.scanOptions().match(pattern).count(chunkSize).build();
+
+			try (Cursor<byte[]> cursor = connection.scan(options)){
+				while (cursor.hasNext()){
+					String key = STRING_SERIALIZER.deserialize(cursor.next());
+
+					// `connection`正在被SCAN使用，所以通过其它连接删除
+					if (redisOperations.execute((RedisCallback<Boolean>) conn -> delete(conn, key, true))){
+						deleted.incrementAndGet();
+					}
+				}
+			}catch (Exception e){
+				log.error("[vergilyn]purge big-key error >>>> pattern: {}, deleted: {}", pattern, deleted.get(), e);
+				throw new IllegalStateException(e);
+			}
+
+			return null;
+		});
+
+		log.info("[vergilyn]purge big-key finish >>>> pattern: {}, deleted: {}", pattern, deleted.get());
+		return deleted.get();
+	}
+
+	public boolean isUnlinkSupported(){
+		if (unlinkSupported == null){
+			unlinkSupported = redisOperations.execute((RedisCallback<Boolean>) this::detectUnlinkSupported);
+		}
+
+		return unlinkSupported;
+	}
+
+	/**
+	 * 按类型分批删除，不使用UNLINK。
+	 *
+	 * @return true: key存在且已删除
+	 */
+	protected boolean deleteIncrementally(String key){
+		return redisOperations.execute((RedisCallback<Boolean>) connection -> deleteIncrementally(connection, key, false));
+	}
+
+	private boolean delete(RedisConnection connection, String key, boolean limited){
+		if (isUnlinkSupported()){
+			acquire(limited);
+
+			Long unlink = connection.unlink(STRING_SERIALIZER.serialize(key));
+			return unlink != null && unlink > 0;
+		}
+
+		return deleteIncrementally(connection, key, limited);
+	}
+
+	private boolean deleteIncrementally(RedisConnection connection, String key, boolean limited){
+		byte[] rawKey = STRING_SERIALIZER.serialize(key);
+
+		DataType type = connection.type(rawKey);
+		if (type == null || type == DataType.NONE){
+			return false;
+		}
+
+		switch (type){
+			case ZSET:
+				Long removed;
+				do {
+					acquire(limited);
+					removed = connection.zRemRange(rawKey, 0, chunkSize - 1);
+				}while (removed != null && removed > 0);
+				break;
+
+			case HASH:
+				scanAndRemove(connection.hScan(rawKey, ScanOptions.scanOptions().count(chunkSize).build()),
+						Map.Entry::getKey, fields -> connection.hDel(rawKey, fields), limited);
+				break;
+
+			case SET:
+				scanAndRemove(connection.sScan(rawKey, ScanOptions.scanOptions().count(chunkSize).build()),
+						member -> member, members -> connection.sRem(rawKey, members), limited);
+				break;
+
+			case LIST:
+				Long llen;
+				do {
+					acquire(limited);
+					connection.lTrim(rawKey, chunkSize, -1);
+					llen = connection.lLen(rawKey);
+				}while (llen != null && llen > 0);
+				break;
+
+			default:
+				break;
+		}
+
+		// 集合类型此时已经是空（key已被redis删除）；其它类型（例如 STRING）直接DEL
+		acquire(limited);
+		connection.del(rawKey);
+
+		return true;
+	}
+
+	private <E> void scanAndRemove(Cursor<E> cursor, Function<E, byte[]> mapper,
+			Consumer<byte[][]> remove, boolean limited){
+		List<byte[]> chunk = Lists.newArrayListWithCapacity(chunkSize);
+
+		try (Cursor<E> c = cursor){
+			while (c.hasNext()){
+				chunk.add(mapper.apply(c.next()));
+
+				if (chunk.size() >= chunkSize){
+					acquire(limited);
+					remove.accept(chunk.toArray(new byte[0][]));
+					chunk.clear();
+				}
+			}
+		}catch (Exception e){
+			throw new IllegalStateException(e);
+		}
+
+		if (!chunk.isEmpty()){
+			acquire(limited);
+			remove.accept(chunk.toArray(new byte[0][]));
+		}
+	}
+
+	private Boolean detectUnlinkSupported(RedisConnection connection){
+		Properties info = connection.info("server");
+		String version = info == null ? null : info.getProperty("redis_version");
+
+		boolean supported = false;
+		if (version != null){
+			String major = version.split("\\.")[0];
+			supported = Integer.parseInt(major) >= 4;
+		}
+
+		log.info("[vergilyn]detect UNLINK supported >>>> redis_version: {}, supported: {}", version, supported);
+		return supported;
+	}
+
+	private void acquire(boolean limited){
+		if (limited){
+			rateLimiter.acquire();
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.vergilyn.examples.commons.redis;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.vergilyn.examples.commons.domain.Tuple;
+
+/**
+ * 多个连接并行执行{@linkplain JedisPipelineBatchGet}的pipeline（例如 预热、导出 读取百万级的key）。
+ *
+ * <p>
+ *   一个pipeline只使用一个连接（socket），并且由一个线程解码结果。这里把keys拆分后的每个pipeline提交到{@linkplain ForkJoinPool}，
+ *   每个pipeline从`jedisSupplier`（例如 {@linkplain JedisClientFactory}的连接池）获取各自的连接、在各自的线程中解码。
+ * <pre>
+ *   1. 最多`parallelism`个pipeline同时执行，需要小于连接池的`maxTotal`（{@linkplain AbstractRedisClient}: 64），否则等待获取连接；
+ *   2. 按keys的顺序回调`consumer`（调用线程），最多缓存`parallelism`个pipeline的结果；
+ *   3. 任意pipeline失败时抛出异常，取消未执行的pipeline，已回调的结果不会撤回。
+ * </pre>
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class JedisParallelBatchGet implements AutoCloseable {
+	private final JedisPipelineBatchGet batchGet;
+	private final int parallelism;
+	private final ForkJoinPool pool;
+
+	public JedisParallelBatchGet(int parallelism) {
+		this(new JedisPipelineBatchGet(), parallelism);
+	}
+
+	public JedisParallelBatchGet(JedisPipelineBatchGet batchGet, int parallelism) {
+		Preconditions.checkArgument(parallelism > 0, "parallelism must be greater than 0");
+
+		this.batchGet = batchGet;
+		this.parallelism = parallelism;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * @return key: redis-key（keys的顺序）, value: 解码后的值
+	 */
+	public <R, T> Map<String, T> get(Collection<String> keys, BatchGetCommand<R, T> command, Function<String, T> missing) {
+		Map<String, T> rs = Maps.newLinkedHashMapWithExpectedSize(keys.size());
+		get(keys, command, missing, rs::put);
+		return rs;
+	}
+
+	/**
+	 * @param missing 参考{@linkplain JedisPipelineBatchGet#get(Collection, BatchGetCommand, Function, BiConsumer)}
+	 * @param consumer 按keys的顺序回调（调用线程）
+	 * @return pipeline的个数
+	 */
+	public <R, T> int get(Collection<String> keys, BatchGetCommand<R, T> command, Function<String, T> missing, BiConsumer<String, T> consumer) {
+		Deque<CompletableFuture<List<Tuple<String, T>>>> window = new ArrayDeque<>(parallelism);
+		try {
+			int pipelines = batchGet.forEachChunk(keys, chunk -> {
+				window.addLast(CompletableFuture.supplyAsync(() -> {
+					List<Tuple<String, T>> values = Lists.newArrayListWithCapacity(chunk.size());
+					batchGet.execute(chunk, command, missing, (key, value) -> values.add(Tuple.of(key, value)));
+					return values;
+				}, pool));
+
+				if (window.size() >= parallelism) {
+					emit(window.pollFirst(), consumer);
+				}
+			});
+
+			while (!window.isEmpty()) {
+				emit(window.pollFirst(), consumer);
+			}
+
+			return pipelines;
+		} catch (RuntimeException e) {
+			window.forEach(future -> future.cancel(false));
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+
+	private static <T> void emit(CompletableFuture<List<Tuple<String, T>>> future, BiConsumer<String, T> consumer) {
+		List<Tuple<String, T>> values;
+		try {
+			values = future.join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		}
+
+		for (Tuple<String, T> value : values) {
+			consumer.accept(value.getFirst(), value.getSecond());
+		}
+	}
+}
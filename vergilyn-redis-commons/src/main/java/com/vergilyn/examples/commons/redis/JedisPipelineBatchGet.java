@@ -0,0 +1,151 @@
+package com.vergilyn.examples.commons.redis;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Utf8;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+/**
+ * 通过{@linkplain Pipeline}批量读取，每种数据类型的 命令 + 解码 由{@linkplain BatchGetCommand}提供。
+ *
+ * <p>
+ * <pre>
+ *   1. 按key个数（`maxKeysPerPipeline`）、key的字节数（`maxBytesPerPipeline`）拆分为多个pipeline，每个pipeline一次round-trip，
+ *      避免100k个key成为一个超大的pipeline（redis的输出缓冲区、客户端内存）；
+ *   2. 每个pipeline的结果按keys的顺序回调`consumer`，不需要在内存中保存全部结果；
+ *   3. `missing != null`时，同一个pipeline中每个key同时发送`EXISTS`，不存在的key的值由`missing`提供（返回null时不回调）。
+ * </pre>
+ *
+ * <p>
+ *   每个pipeline从`jedisSupplier`获取一个连接，执行后`close()`（连接池时归还连接）。
+ *   读取失败时抛出异常，已回调的结果不会撤回。
+ * </p>
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public class JedisPipelineBatchGet {
+	public static final int DEFAULT_MAX_KEYS_PER_PIPELINE = 1000;
+	public static final int DEFAULT_MAX_BYTES_PER_PIPELINE = 64 * 1024;
+
+	private final Supplier<Jedis> jedisSupplier;
+	private final int maxKeysPerPipeline;
+	private final int maxBytesPerPipeline;
+
+	public JedisPipelineBatchGet() {
+		this(() -> JedisClientFactory.getInstance().jedis());
+	}
+
+	public JedisPipelineBatchGet(Supplier<Jedis> jedisSupplier) {
+		this(jedisSupplier, DEFAULT_MAX_KEYS_PER_PIPELINE, DEFAULT_MAX_BYTES_PER_PIPELINE);
+	}
+
+	/**
+	 *
+	 * @param maxKeysPerPipeline 每个pipeline最多的key个数
+	 * @param maxBytesPerPipeline 每个pipeline的key最多的字节数（UTF-8），至少包含1个key
+	 */
+	public JedisPipelineBatchGet(Supplier<Jedis> jedisSupplier, int maxKeysPerPipeline, int maxBytesPerPipeline) {
+		Preconditions.checkArgument(maxKeysPerPipeline > 0, "maxKeysPerPipeline must be greater than 0");
+		Preconditions.checkArgument(maxBytesPerPipeline > 0, "maxBytesPerPipeline must be greater than 0");
+
+		this.jedisSupplier = jedisSupplier;
+		this.maxKeysPerPipeline = maxKeysPerPipeline;
+		this.maxBytesPerPipeline = maxBytesPerPipeline;
+	}
+
+	/**
+	 * @return key: redis-key（keys的顺序）, value: 解码后的值
+	 */
+	public <R, T> Map<String, T> get(Collection<String> keys, BatchGetCommand<R, T> command, Function<String, T> missing) {
+		Map<String, T> rs = Maps.newLinkedHashMapWithExpectedSize(keys.size());
+		get(keys, command, missing, rs::put);
+		return rs;
+	}
+
+	/**
+	 * @param missing null: 不检查key是否存在（不存在的key由`command`解码）
+	 * @param consumer 按keys的顺序回调
+	 * @return pipeline的个数
+	 */
+	public <R, T> int get(Collection<String> keys, BatchGetCommand<R, T> command, Function<String, T> missing, BiConsumer<String, T> consumer) {
+		return forEachChunk(keys, chunk -> execute(chunk, command, missing, consumer));
+	}
+
+	/**
+	 * 按`maxKeysPerPipeline`、`maxBytesPerPipeline`拆分keys（每个chunk一个pipeline）。
+	 *
+	 * @return chunk的个数
+	 */
+	int forEachChunk(Collection<String> keys, Consumer<List<String>> action) {
+		int chunks = 0;
+
+		List<String> chunk = Lists.newArrayListWithCapacity(Math.min(keys.size(), maxKeysPerPipeline));
+		int bytes = 0;
+		for (String key : keys) {
+			int keyBytes = Utf8.encodedLength(key);
+			if (!chunk.isEmpty() && (chunk.size() >= maxKeysPerPipeline || bytes + keyBytes > maxBytesPerPipeline)) {
+				action.accept(chunk);
+				chunks++;
+
+				chunk = Lists.newArrayListWithCapacity(Math.min(keys.size(), maxKeysPerPipeline));
+				bytes = 0;
+			}
+
+			chunk.add(key);
+			bytes += keyBytes;
+		}
+
+		if (!chunk.isEmpty()) {
+			action.accept(chunk);
+			chunks++;
+		}
+
+		return chunks;
+	}
+
+	/**
+	 * 一个pipeline（一个连接）读取`keys`。
+	 */
+	<R, T> void execute(List<String> keys, BatchGetCommand<R, T> command, Function<String, T> missing, BiConsumer<String, T> consumer) {
+		List<Response<Boolean>> exists = missing == null ? null : Lists.newArrayListWithCapacity(keys.size());
+		List<Response<R>> responses = Lists.newArrayListWithCapacity(keys.size());
+
+		try (Jedis jedis = jedisSupplier.get()) {
+			Pipeline pipeline = jedis.pipelined();
+			for (String key : keys) {
+				if (exists != null) {
+					exists.add(pipeline.exists(key));
+				}
+				responses.add(command.request(pipeline, key));
+			}
+			pipeline.sync();
+		}
+
+		for (int i = 0, len = keys.size(); i < len; i++) {
+			String key = keys.get(i);
+
+			if (exists != null && !exists.get(i).get()) {
+				T value = missing.apply(key);
+				if (value != null) {
+					consumer.accept(key, value);
+				}
+				continue;
+			}
+
+			consumer.accept(key, command.decode(responses.get(i).get()));
+		}
+	}
+}
@@ -5,10 +5,27 @@ import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.alibaba.fastjson.support.config.FastJsonConfig;
 import com.alibaba.fastjson.support.spring.FastJsonRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
 
 public class RedisSerializerFactory {
+	private static final RedisSerializer<Object> SCRIPT_ARGS = new RedisSerializer<Object>() {
+		@Override
+		public byte[] serialize(Object value) throws SerializationException {
+			if (value == null) {
+				return null;
+			}
+			return value instanceof byte[] ? (byte[]) value : value.toString().getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public Object deserialize(byte[] bytes) throws SerializationException {
+			return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
 
 	public static <T> RedisSerializer<T> jackson(){
 		return jacksonRedisSerializer();
@@ -18,6 +35,14 @@ public class RedisSerializerFactory {
 		return getFastJsonRedisSerializer();
 	}
 
+	/**
+	 * lua参数（`RedisTemplate#execute(RedisScript, RedisSerializer, RedisSerializer, List, Object...)`）序列化：
+	 * byte[]直接写入（例如 hashValueSerializer序列化后的值），其余按UTF-8字符串。
+	 */
+	public static RedisSerializer<Object> scriptArgs(){
+		return SCRIPT_ARGS;
+	}
+
 	private static <T> Jackson2JsonRedisSerializer<T> jacksonRedisSerializer() {
 		/*Jackson2JsonRedisSerializer jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer(Object.class);
 		ObjectMapper om = new ObjectMapper();
@@ -0,0 +1,168 @@
+package com.vergilyn.examples.commons.utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import com.google.common.collect.Lists;
+import com.vergilyn.examples.commons.domain.Tuple;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * 通过 pipeline 批量执行同一个lua脚本（EVALSHA）。
+ *
+ * <p>
+ *   spring-data-redis 的 JedisConnection 在 pipeline 中不支持 scripting-commands（UnsupportedOperationException），
+ *   所以这里直接使用 {@linkplain RedisConnection#getNativeConnection() native-connection}，即要求 JedisConnectionFactory。
+ * </p>
+ *
+ * <p>
+ *   优先直接 EVALSHA（1次RTT），只有当返回`NOSCRIPT`时才`SCRIPT LOAD`，并重新执行失败的那部分调用。
+ * </p>
+ *
+ * @author vergilyn
+ * @since 2026-10-19
+ */
+public abstract class RedisScriptPipelineUtils {
+	private static final String NOSCRIPT_PREFIX = "NOSCRIPT";
+
+	/**
+	 *
+	 * @param calls first: KEYS, second: ARGV
+	 * @return 与`calls`顺序相同；lua执行错误时，对应的值是{@linkplain JedisDataException}
+	 */
+	public static List<Object> evalsha(StringRedisTemplate redisTemplate, RedisScript<?> script,
+			List<Tuple<List<String>, List<String>>> calls){
+		if (calls == null || calls.isEmpty()){
+			return Collections.emptyList();
+		}
+
+		return redisTemplate.execute((RedisCallback<List<Object>>) connection ->
+				evalsha((Jedis) connection.getNativeConnection(), script, calls));
+	}
+
+	public static List<Object> evalsha(Jedis jedis, RedisScript<?> script, List<Tuple<List<String>, List<String>>> calls){
+		List<Object> results = pipelined(jedis, script.getSha1(), calls);
+
+		List<Integer> noscript = Lists.newArrayList();
+		for (int i = 0, len = results.size(); i < len; i++){
+			if (isNoScript(results.get(i))){
+				noscript.add(i);
+			}
+		}
+
+		if (noscript.isEmpty()){
+			return results;
+		}
+
+		String sha = jedis.scriptLoad(script.getScriptAsString());
+
+		List<Tuple<List<String>, List<String>>> retryCalls = Lists.newArrayListWithCapacity(noscript.size());
+		noscript.forEach(index -> retryCalls.add(calls.get(index)));
+
+		List<Object> retry = pipelined(jedis, sha, retryCalls);
+		for (int i = 0, len = noscript.size(); i < len; i++){
+			results.set(noscript.get(i), retry.get(i));
+		}
+
+		return results;
+	}
+
+	/**
+	 * 同一个key、参数很多时（例如 导入历史数据），将`args`拆分成多次调用，避免：
+	 * <pre>
+	 *   1. lua `unpack` 超过栈限制（"too many results to unpack"）；
+	 *   2. 单次lua执行时间过长，阻塞redis。
+	 * </pre>
+	 * 每`callsPerPipeline`次调用作为一个pipeline发送，所有调用复用同一个连接。
+	 *
+	 * @param argsPerCall 每次调用的ARGV数量
+	 * @param progress 每个pipeline完成后回调，参数：已发送的ARGV数量。可以为null
+	 * @return 每次调用的结果
+	 * @throws JedisDataException 任意一次调用失败（之前的调用已经生效，不会回滚）
+	 */
+	public static List<Object> evalshaChunked(StringRedisTemplate redisTemplate, RedisScript<?> script, String key,
+			List<String> args, int argsPerCall, int callsPerPipeline, IntConsumer progress){
+		if (args == null || args.isEmpty()){
+			return Collections.emptyList();
+		}
+
+		List<String> keys = Collections.singletonList(key);
+		List<List<List<String>>> pipelines = Lists.partition(Lists.partition(args, argsPerCall), callsPerPipeline);
+
+		return redisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+			Jedis jedis = (Jedis) connection.getNativeConnection();
+
+			List<Object> results = Lists.newArrayListWithCapacity(args.size() / argsPerCall + 1);
+			int sent = 0;
+			for (List<List<String>> chunks : pipelines){
+				List<Tuple<List<String>, List<String>>> calls = Lists.newArrayListWithCapacity(chunks.size());
+				for (List<String> chunk : chunks){
+					calls.add(Tuple.of(keys, chunk));
+					sent += chunk.size();
+				}
+
+				for (Object result : evalsha(jedis, script, calls)){
+					if (result instanceof JedisDataException){
+						throw (JedisDataException) result;
+					}
+					results.add(result);
+				}
+
+				if (progress != null){
+					progress.accept(sent);
+				}
+			}
+
+			return results;
+		});
+	}
+
+	/**
+	 * lua返回值转换成boolean：`true`/`1`。（lua-false 对应 redis-nil）
+	 */
+	public static boolean toBoolean(Object result){
+		if (result instanceof Long){
+			return (Long) result == 1L;
+		}
+
+		return Boolean.TRUE.equals(result);
+	}
+
+	private static List<Object> pipelined(Jedis jedis, String sha, List<Tuple<List<String>, List<String>>> calls){
+		Pipeline pipeline = jedis.pipelined();
+
+		List<Response<Object>> responses = Lists.newArrayListWithCapacity(calls.size());
+		for (Tuple<List<String>, List<String>> call : calls){
+			responses.add(pipeline.evalsha(sha, call.getFirst(), call.getSecond()));
+		}
+
+		// 某条命令错误时，`Response#get`抛出 JedisDataException，不影响其它命令的结果
+		pipeline.sync();
+
+		List<Object> results = Lists.newArrayListWithCapacity(calls.size());
+		for (Response<Object> response : responses){
+			try {
+				results.add(response.get());
+			}catch (JedisDataException e){
+				results.add(e);
+			}
+		}
+
+		return results;
+	}
+
+	private static boolean isNoScript(Object result){
+		return result instanceof JedisDataException
+				&& ((JedisDataException) result).getMessage() != null
+				&& ((JedisDataException) result).getMessage().startsWith(NOSCRIPT_PREFIX);
+	}
+}
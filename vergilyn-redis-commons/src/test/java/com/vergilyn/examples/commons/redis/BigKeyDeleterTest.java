@@ -0,0 +1,66 @@
+package com.vergilyn.examples.commons.redis;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BigKeyDeleterTest {
+	private final StringRedisTemplate stringRedisTemplate = RedisClientFactory.getInstance().stringRedisTemplate();
+	private final BigKeyDeleter deleter = new BigKeyDeleter(stringRedisTemplate, 100, 10_000);
+
+	private final String zsetKey = "test:big-key:zset";
+	private final String hashKey = "test:big-key:hash";
+	private final String setKey = "test:big-key:set";
+	private final String listKey = "test:big-key:list";
+
+	@BeforeEach
+	public void beforeEach(){
+		Set<TypedTuple<String>> tuples = IntStream.range(0, 1000)
+				.mapToObj(i -> (TypedTuple<String>) new DefaultTypedTuple<>("m" + i, (double) i))
+				.collect(Collectors.toSet());
+		stringRedisTemplate.opsForZSet().add(zsetKey, tuples);
+
+		Map<String, String> hash = IntStream.range(0, 1000).boxed()
+				.collect(Collectors.toMap(i -> "f" + i, String::valueOf));
+		stringRedisTemplate.opsForHash().putAll(hashKey, hash);
+
+		stringRedisTemplate.opsForSet().add(setKey, hash.keySet().toArray(new String[0]));
+		stringRedisTemplate.opsForList().rightPushAll(listKey, hash.keySet());
+	}
+
+	@Test
+	public void unlink(){
+		assertThat(deleter.isUnlinkSupported()).isTrue();
+
+		assertThat(deleter.delete(zsetKey)).isTrue();
+		assertThat(deleter.delete(zsetKey)).isFalse();
+		assertThat(stringRedisTemplate.hasKey(zsetKey)).isFalse();
+	}
+
+	@Test
+	public void incrementally(){
+		for (String key : new String[]{zsetKey, hashKey, setKey, listKey}){
+			assertThat(deleter.deleteIncrementally(key)).isTrue();
+			assertThat(stringRedisTemplate.hasKey(key)).isFalse();
+		}
+
+		assertThat(deleter.deleteIncrementally(zsetKey)).isFalse();
+	}
+
+	@Test
+	public void purge(){
+		long deleted = deleter.purge("test:big-key:*");
+
+		assertThat(deleted).isEqualTo(4L);
+		assertThat(stringRedisTemplate.keys("test:big-key:*")).isEmpty();
+	}
+}
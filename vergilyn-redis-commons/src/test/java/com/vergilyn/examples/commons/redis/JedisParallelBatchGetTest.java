@@ -0,0 +1,78 @@
+package com.vergilyn.examples.commons.redis;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.google.common.collect.Lists;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JedisParallelBatchGetTest {
+	private static final String KEY_PREFIX = "test:parallel-batch-get:";
+
+	private final List<String> keys = IntStream.range(0, 1000).mapToObj(i -> KEY_PREFIX + i).collect(Collectors.toList());
+
+	private final JedisParallelBatchGet parallelBatchGet = new JedisParallelBatchGet(
+			new JedisPipelineBatchGet(() -> JedisClientFactory.getInstance().jedis(), 30, 1024), 4);
+
+	@BeforeEach
+	public void beforeEach(){
+		try (Jedis jedis = JedisClientFactory.getInstance().jedis()) {
+			Pipeline pipeline = jedis.pipelined();
+			for (int i = 0; i < keys.size(); i++) {
+				// 每10个key有1个不存在
+				if (i % 10 == 0) {
+					pipeline.del(keys.get(i));
+				} else {
+					pipeline.set(keys.get(i), String.valueOf(i));
+				}
+			}
+			pipeline.sync();
+		}
+	}
+
+	@AfterEach
+	public void afterEach(){
+		parallelBatchGet.close();
+	}
+
+	@Test
+	public void streamInOrder(){
+		List<String> consumed = Lists.newArrayList();
+		int pipelines = parallelBatchGet.get(keys, BatchGetCommand.string(BatchGetCommand.decoder(Integer.class)), key -> -1,
+				(key, value) -> {
+					consumed.add(key);
+					int index = keys.indexOf(key);
+					assertThat(value).isEqualTo(index % 10 == 0 ? -1 : index);
+				});
+
+		assertThat(pipelines).isEqualTo(34);
+		assertThat(consumed).isEqualTo(keys);
+	}
+
+	@Test
+	public void merge(){
+		Map<String, Integer> rs = parallelBatchGet.get(keys, BatchGetCommand.string(BatchGetCommand.decoder(Integer.class)), key -> null);
+
+		assertThat(rs).hasSize(900);
+		assertThat(rs.keySet()).containsExactlyElementsOf(
+				keys.stream().filter(key -> !key.endsWith("0")).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void error(){
+		// WRONGTYPE
+		assertThatThrownBy(() -> parallelBatchGet.get(keys, BatchGetCommand.set(BatchGetCommand.decoder(String.class)), null))
+				.isInstanceOf(JedisDataException.class);
+	}
+}
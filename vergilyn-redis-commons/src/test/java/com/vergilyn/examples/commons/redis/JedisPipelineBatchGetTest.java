@@ -0,0 +1,74 @@
+package com.vergilyn.examples.commons.redis;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.google.common.collect.Lists;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JedisPipelineBatchGetTest {
+	private static final String KEY_PREFIX = "test:batch-get:";
+
+	private final List<String> keys = IntStream.range(0, 25).mapToObj(i -> KEY_PREFIX + i).collect(Collectors.toList());
+
+	@BeforeEach
+	public void beforeEach(){
+		try (Jedis jedis = JedisClientFactory.getInstance().jedis()) {
+			Pipeline pipeline = jedis.pipelined();
+			for (int i = 0; i < keys.size(); i++) {
+				// 偶数key不存在
+				if (i % 2 == 0) {
+					pipeline.del(keys.get(i));
+				} else {
+					pipeline.set(keys.get(i), String.valueOf(i));
+				}
+			}
+			pipeline.sync();
+		}
+	}
+
+	@Test
+	public void chunkByKeys(){
+		JedisPipelineBatchGet batchGet = new JedisPipelineBatchGet(() -> JedisClientFactory.getInstance().jedis(), 10, 1024);
+
+		List<String> consumed = Lists.newArrayList();
+		int pipelines = batchGet.get(keys, BatchGetCommand.string(BatchGetCommand.decoder(Integer.class)), key -> -1,
+				(key, value) -> {
+					consumed.add(key);
+					assertThat(value).isEqualTo(keys.indexOf(key) % 2 == 0 ? -1 : keys.indexOf(key));
+				});
+
+		assertThat(pipelines).isEqualTo(3);
+		assertThat(consumed).isEqualTo(keys);
+	}
+
+	@Test
+	public void chunkByBytes(){
+		// 每个key 16~17 bytes
+		JedisPipelineBatchGet batchGet = new JedisPipelineBatchGet(() -> JedisClientFactory.getInstance().jedis(), 1000, 40);
+
+		int pipelines = batchGet.get(keys, BatchGetCommand.string(BatchGetCommand.decoder(String.class)), null, (key, value) -> {});
+
+		assertThat(pipelines).isEqualTo(13);
+	}
+
+	@Test
+	public void missing(){
+		JedisPipelineBatchGet batchGet = new JedisPipelineBatchGet();
+
+		// `missing`返回null时不回调
+		Map<String, String> rs = batchGet.get(keys, BatchGetCommand.string(BatchGetCommand.decoder(String.class)), key -> null);
+
+		assertThat(rs).hasSize(12)
+				.containsEntry(KEY_PREFIX + 1, "1")
+				.doesNotContainKey(KEY_PREFIX + 0);
+	}
+}